@@ -0,0 +1,114 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import com.github.jknack.handlebars.Context;
+import com.github.jknack.handlebars.Template;
+
+/**
+ * Parallel render of one template for many data objects, see
+ * {@link HandlebarsApi#renderAll(String, Iterable, String, Executor, Consumer)
+ * renderAll}.
+ */
+final class BatchRenderer {
+
+	/**
+	 * How many renders of one batch could be in flight per processor.
+	 */
+	private final static int BATCH_WINDOW_PER_PROCESSOR = 4;
+
+	/**
+	 * Output buffers of the batch renders, one per worker thread.
+	 */
+	private final static ThreadLocal<StringBuilderWriter> BATCH_BUFFERS = 
+			ThreadLocal.withInitial(StringBuilderWriter::new);
+
+	private final Renderer renderer;
+	private final Themes themes;
+
+	BatchRenderer(final Renderer renderer, final Themes themes) {
+		this.renderer = renderer;
+		this.themes = themes;
+	}
+
+	/**
+	 * Render the template for every data object in the executor and pass the
+	 * results to the consumer in the order of the data, in the caller thread.
+	 * Only a few renders per processor are in flight.
+	 *
+	 * @param template
+	 *            The compiled template.
+	 * @param data
+	 *            Data objects, one per render.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @param executor
+	 *            Executor for the renders.
+	 * @param consumer
+	 *            Consumer of the results.
+	 */
+	void renderAll(
+			final Template template, 
+			final Iterable<?> data, 
+			final String languageCode, 
+			final Executor executor,
+			final Consumer<? super String> consumer) {
+		// The partials are resolved in the worker threads.
+		final String theme = themes.current();
+		final int window = BATCH_WINDOW_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+		final Deque<CompletableFuture<String>> inFlight = new ArrayDeque<>(window);
+		try {
+			for (final Object item : data) {
+				if (inFlight.size() >= window) {
+					consumer.accept(join(inFlight.poll()));
+				}
+				inFlight.add(CompletableFuture.supplyAsync(
+						() -> themes.with(theme, () -> render(template, item, languageCode)), executor));
+			}
+			while (!inFlight.isEmpty()) {
+				consumer.accept(join(inFlight.poll()));
+			}
+		} catch (RuntimeException e) {
+			for (CompletableFuture<String> future : inFlight) {
+				future.cancel(false);
+			}
+			throw e;
+		}
+	}
+
+	private String render(final Template template, final Object data, final String languageCode) {
+		final Context context = renderer.newContext(data, Collections.emptyList(), languageCode);
+
+		StringBuilderWriter writer = BATCH_BUFFERS.get();
+		if (writer.inUse) {
+			// A render inside of the render, do not share the buffer.
+			writer = new StringBuilderWriter();
+		}
+
+		writer.inUse = true;
+		try {
+			return renderer.render(template, context, writer);
+		} catch (Exception e) {
+			throw Renderer.failure(e);
+		} finally {
+			writer.reset();
+			writer.inUse = false;
+		}
+	}
+
+	private static String join(final CompletableFuture<String> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			throw (e.getCause() instanceof RuntimeException) 
+					? (RuntimeException) e.getCause() 
+					: new RuntimeException(e.getCause());
+		}
+	}
+}
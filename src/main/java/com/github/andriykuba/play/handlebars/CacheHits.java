@@ -0,0 +1,118 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+
+import com.github.andriykuba.play.handlebars.helpers.PlayHelpers;
+import com.github.jknack.handlebars.Handlebars;
+
+/**
+ * Hits of the template, route and asset cache keys, for the
+ * {@link CacheSnapshot} of the hot keys and the warm-up from it. The
+ * template of a theme is counted as "theme:template".
+ */
+final class CacheHits {
+
+	/**
+	 * How many keys of every cache are counted and kept in the snapshot.
+	 */
+	private final static int MAX_COUNTED_KEYS = 10000;
+	private final static int MAX_SNAPSHOT_KEYS = 1000;
+
+	private final static char THEME_SEPARATOR = ':';
+
+	private final Handlebars handlebars;
+	private final Themes themes;
+	private final PlayHelpers playHelpers;
+
+	/**
+	 * Hits of the cache keys, null if they are not counted.
+	 */
+	private volatile HitCounter templateHits;
+	private volatile HitCounter routeHits;
+	private volatile HitCounter assetHits;
+
+	CacheHits(final Handlebars handlebars, final Themes themes, final PlayHelpers playHelpers) {
+		this.handlebars = handlebars;
+		this.themes = themes;
+		this.playHelpers = playHelpers;
+	}
+
+	/**
+	 * Start counting the hits.
+	 */
+	synchronized void start() {
+		if (templateHits == null) {
+			routeHits = new HitCounter(MAX_COUNTED_KEYS);
+			assetHits = new HitCounter(MAX_COUNTED_KEYS);
+			playHelpers.countHits(routeHits, assetHits);
+			templateHits = new HitCounter(MAX_COUNTED_KEYS);
+		}
+	}
+
+	/**
+	 * Count the render of the template in the current theme, if the hits
+	 * are counted.
+	 *
+	 * @param templateName
+	 *            Name of the template.
+	 */
+	void template(final String templateName) {
+		final HitCounter hits = templateHits;
+		if (hits != null) {
+			final String theme = themes.current();
+			hits.hit(theme == null ? templateName : theme + THEME_SEPARATOR + templateName);
+		}
+	}
+
+	/**
+	 * @return the most hit templates, routes and assets, empty if the hits
+	 *         are not counted.
+	 */
+	CacheSnapshot snapshot() {
+		final HitCounter templates = templateHits;
+		if (templates == null) {
+			return new CacheSnapshot(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+		}
+		return new CacheSnapshot(
+				templates.top(MAX_SNAPSHOT_KEYS), 
+				routeHits.top(MAX_SNAPSHOT_KEYS), 
+				assetHits.top(MAX_SNAPSHOT_KEYS));
+	}
+
+	/**
+	 * Compile the templates and resolve the routes and assets of the
+	 * snapshot. The keys that are not valid any more are skipped.
+	 *
+	 * @param snapshot
+	 *            The hot keys of the previous run.
+	 * @return Count of the skipped keys.
+	 */
+	int warmUp(final CacheSnapshot snapshot) {
+		int skipped = 0;
+		for (String key : snapshot.getTemplates().keySet()) {
+			final int separator = key.indexOf(THEME_SEPARATOR);
+			final String theme = (separator < 0) ? null : key.substring(0, separator);
+			try {
+				if (theme != null && themes.names().contains(theme)) {
+					themes.with(theme, () -> compile(key.substring(separator + 1)));
+				} else {
+					compile(key);
+				}
+			} catch (RuntimeException e) {
+				skipped++;
+			}
+		}
+		return skipped + playHelpers.preload(snapshot.getRoutes().keySet(), snapshot.getAssets().keySet());
+	}
+
+	private Void compile(final String templateName) {
+		try {
+			handlebars.compile(templateName);
+			return null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
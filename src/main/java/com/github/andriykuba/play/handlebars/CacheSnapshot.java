@@ -0,0 +1,216 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The hot keys of the template, route and asset caches with their hit
+ * counts. It is written on the shutdown and read on the next start, so the
+ * caches are filled before the traffic comes.
+ *
+ * The file is a text, one key per line: the kind, the count and the key,
+ * separated by the tab. The backslash, tab and line breaks of the key are
+ * escaped with the backslash.
+ */
+public final class CacheSnapshot {
+	private final static String HEADER = "# handlebars cache snapshot v2";
+
+	/**
+	 * The keys of the first version are not escaped.
+	 */
+	private final static String HEADER_V1 = "# handlebars cache snapshot v1";
+	private final static String TEMPLATE = "template";
+	private final static String ROUTE = "route";
+	private final static String ASSET = "asset";
+
+	private final Map<String, Long> templates;
+	private final Map<String, Long> routes;
+	private final Map<String, Long> assets;
+
+	/**
+	 * @param templates
+	 *            Template names with the render counts.
+	 * @param routes
+	 *            Route expressions with the hit counts.
+	 * @param assets
+	 *            Asset paths with the hit counts.
+	 */
+	public CacheSnapshot(final Map<String, Long> templates, final Map<String, Long> routes, final Map<String, Long> assets) {
+		this.templates = Collections.unmodifiableMap(templates);
+		this.routes = Collections.unmodifiableMap(routes);
+		this.assets = Collections.unmodifiableMap(assets);
+	}
+
+	public Map<String, Long> getTemplates() {
+		return templates;
+	}
+
+	public Map<String, Long> getRoutes() {
+		return routes;
+	}
+
+	public Map<String, Long> getAssets() {
+		return assets;
+	}
+
+	/**
+	 * Write the snapshot. The file is replaced at once, the reader never
+	 * sees the half written file.
+	 *
+	 * @param file
+	 *            The snapshot file.
+	 * @throws IOException
+	 *             If the file could not be written.
+	 */
+	public void write(final File file) throws IOException {
+		final Path target = file.toPath().toAbsolutePath();
+		Files.createDirectories(target.getParent());
+		final Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+				writer.write(HEADER);
+				writer.newLine();
+				write(writer, TEMPLATE, templates);
+				write(writer, ROUTE, routes);
+				write(writer, ASSET, assets);
+			}
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private static void write(final BufferedWriter writer, final String kind, final Map<String, Long> keys)
+			throws IOException {
+		for (Map.Entry<String, Long> key : keys.entrySet()) {
+			writer.write(kind);
+			writer.write('\t');
+			writer.write(Long.toString(key.getValue()));
+			writer.write('\t');
+			writer.write(escape(key.getKey()));
+			writer.newLine();
+		}
+	}
+
+	private static String escape(final String key) {
+		StringBuilder escaped = null;
+		for (int i = 0; i < key.length(); i++) {
+			final char c = key.charAt(i);
+			final String replacement;
+			switch (c) {
+			case '\\':
+				replacement = "\\\\";
+				break;
+			case '\t':
+				replacement = "\\t";
+				break;
+			case '\n':
+				replacement = "\\n";
+				break;
+			case '\r':
+				replacement = "\\r";
+				break;
+			default:
+				replacement = null;
+			}
+			if (replacement != null && escaped == null) {
+				escaped = new StringBuilder(key.length() + 8).append(key, 0, i);
+			}
+			if (escaped != null) {
+				if (replacement == null) {
+					escaped.append(c);
+				} else {
+					escaped.append(replacement);
+				}
+			}
+		}
+		return escaped == null ? key : escaped.toString();
+	}
+
+	private static String unescape(final String key) {
+		if (key.indexOf('\\') < 0) {
+			return key;
+		}
+		final StringBuilder unescaped = new StringBuilder(key.length());
+		for (int i = 0; i < key.length(); i++) {
+			final char c = key.charAt(i);
+			if (c != '\\' || i == key.length() - 1) {
+				unescaped.append(c);
+				continue;
+			}
+			final char next = key.charAt(++i);
+			switch (next) {
+			case 't':
+				unescaped.append('\t');
+				break;
+			case 'n':
+				unescaped.append('\n');
+				break;
+			case 'r':
+				unescaped.append('\r');
+				break;
+			default:
+				unescaped.append(next);
+			}
+		}
+		return unescaped.toString();
+	}
+
+	/**
+	 * Read the snapshot. Unknown and broken lines are skipped.
+	 *
+	 * @param file
+	 *            The snapshot file.
+	 * @return the snapshot, empty if there is no file.
+	 * @throws IOException
+	 *             If the file could not be read.
+	 */
+	public static CacheSnapshot read(final File file) throws IOException {
+		final Map<String, Long> templates = new LinkedHashMap<>();
+		final Map<String, Long> routes = new LinkedHashMap<>();
+		final Map<String, Long> assets = new LinkedHashMap<>();
+
+		if (file.isFile()) {
+			try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				boolean escaped = true;
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (HEADER_V1.equals(line)) {
+						escaped = false;
+					}
+					final String[] columns = line.split("\t", 3);
+					if (columns.length < 3) {
+						continue;
+					}
+					final String key = escaped ? unescape(columns[2]) : columns[2];
+
+					final long count;
+					try {
+						count = Long.parseLong(columns[1]);
+					} catch (NumberFormatException e) {
+						continue;
+					}
+
+					if (TEMPLATE.equals(columns[0])) {
+						templates.put(key, count);
+					} else if (ROUTE.equals(columns[0])) {
+						routes.put(key, count);
+					} else if (ASSET.equals(columns[0])) {
+						assets.put(key, count);
+					}
+				}
+			}
+		}
+
+		return new CacheSnapshot(templates, routes, assets);
+	}
+}
@@ -0,0 +1,159 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import play.api.libs.json.JsArray;
+import play.api.libs.json.JsObject;
+import play.api.libs.json.JsValue;
+import scala.collection.JavaConverters;
+
+/**
+ * Projection of the render data down to the data paths of a template, see
+ * {@link HandlebarsApi#getDataPaths(String)}.
+ *
+ * The paths are kept in a trie. The value at the end of a path is kept as
+ * is, with all its content. The arrays are transparent, the rest of the path
+ * is applied to every element, the indexes in the path are ignored. Play
+ * JSON, Jackson JSON, maps and lists are projected, any other value is kept
+ * as is.
+ */
+public final class DataProjection {
+
+	private final static Pattern SEPARATOR = Pattern.compile("[./]");
+	private final static Pattern INDEX = Pattern.compile("\\d+");
+
+	private final Set<String> paths;
+	private final Node root = new Node();
+
+	/**
+	 * @param paths
+	 *            Data paths, like "user.address.city".
+	 */
+	public DataProjection(final Collection<String> paths) {
+		this.paths = Collections.unmodifiableSet(new TreeSet<>(paths));
+
+		for (String path : this.paths) {
+			Node node = root;
+			for (String segment : SEPARATOR.split(path)) {
+				final String key = (segment.startsWith("[") && segment.endsWith("]"))
+						? segment.substring(1, segment.length() - 1) : segment;
+				if (!key.isEmpty() && !INDEX.matcher(key).matches()) {
+					node = node.children.computeIfAbsent(key, k -> new Node());
+				}
+			}
+			node.whole = true;
+		}
+	}
+
+	/**
+	 * @return the projected data paths.
+	 */
+	public Set<String> getPaths() {
+		return paths;
+	}
+
+	/**
+	 * Copy the data down to the paths. The data is not modified.
+	 *
+	 * @param data
+	 *            The render data.
+	 * @return the projected data.
+	 */
+	public Object project(final Object data) {
+		return project(data, root);
+	}
+
+	private static Object project(final Object data, final Node node) {
+		if (node.whole || data == null) {
+			return data;
+		}
+
+		if (data instanceof JsObject) {
+			final scala.collection.Map<String, JsValue> values = ((JsObject) data).underlying();
+			final Map<String, JsValue> projected = new LinkedHashMap<>();
+			for (Map.Entry<String, Node> child : node.children.entrySet()) {
+				final scala.Option<JsValue> value = values.get(child.getKey());
+				if (value.isDefined()) {
+					projected.put(child.getKey(), (JsValue) project(value.get(), child.getValue()));
+				}
+			}
+			return new JsObject(JavaConverters.mapAsScalaMapConverter(projected).asScala());
+		}
+
+		if (data instanceof JsArray) {
+			final List<JsValue> projected = new ArrayList<>();
+			final scala.collection.Iterator<JsValue> elements = ((JsArray) data).value().iterator();
+			while (elements.hasNext()) {
+				projected.add((JsValue) project(elements.next(), node));
+			}
+			return JsArray.apply(JavaConverters.asScalaBufferConverter(projected).asScala());
+		}
+
+		if (data instanceof ObjectNode) {
+			final ObjectNode projected = JsonNodeFactory.instance.objectNode();
+			for (Map.Entry<String, Node> child : node.children.entrySet()) {
+				final JsonNode value = ((ObjectNode) data).get(child.getKey());
+				if (value != null) {
+					projected.set(child.getKey(), (JsonNode) project(value, child.getValue()));
+				}
+			}
+			return projected;
+		}
+
+		if (data instanceof ArrayNode) {
+			final ArrayNode projected = JsonNodeFactory.instance.arrayNode();
+			for (Iterator<JsonNode> elements = ((ArrayNode) data).elements(); elements.hasNext();) {
+				projected.add((JsonNode) project(elements.next(), node));
+			}
+			return projected;
+		}
+
+		if (data instanceof Map) {
+			final Map<?, ?> values = (Map<?, ?>) data;
+			final Map<String, Object> projected = new LinkedHashMap<>();
+			for (Map.Entry<String, Node> child : node.children.entrySet()) {
+				if (values.containsKey(child.getKey())) {
+					projected.put(child.getKey(), project(values.get(child.getKey()), child.getValue()));
+				}
+			}
+			return projected;
+		}
+
+		if (data instanceof List) {
+			final List<Object> projected = new ArrayList<>(((List<?>) data).size());
+			for (Object element : (List<?>) data) {
+				projected.add(project(element, node));
+			}
+			return projected;
+		}
+
+		return data;
+	}
+
+	/**
+	 * The node of the paths trie.
+	 */
+	private static final class Node {
+		final Map<String, Node> children = new HashMap<>();
+
+		/**
+		 * A path ends here, the value is kept with all its content.
+		 */
+		boolean whole;
+	}
+}
@@ -0,0 +1,154 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+import play.data.Form;
+import play.data.validation.ValidationError;
+
+/**
+ * Map view of the {@link play.data.Form} errors, with the same keys as
+ * {@link HandlebarsTools#getErrorsAsMap(Form, String) getErrorsAsMap}.
+ *
+ * Nothing is computed in advance. The error of the field is looked up only
+ * when the template reads it, the whole set of errors is collected only when
+ * the template iterates over it.
+ */
+final class FormErrorsMap extends AbstractMap<String, Object> {
+	private final static String MESSAGE_KEY_ERROR = "error";
+	private final static String MESSAGE_KEY_VALUE = "value";
+	private final static String MESSAGE_KEY_FORMS = "forms";
+
+	/**
+	 * Form message ids are constants in the code, but do not let the cache
+	 * grow endlessly.
+	 */
+	private final static int MAX_CACHED_PREFIXES = 1024;
+
+	private final static Map<String, String> PREFIXES = new ConcurrentHashMap<>();
+
+	private final Form<?> form;
+	private final String prefix;
+
+	private Set<Map.Entry<String, Object>> entries;
+
+	FormErrorsMap(final Form<?> form, final String formMessageId) {
+		this.form = form;
+		this.prefix = prefix(formMessageId);
+	}
+
+	/**
+	 * @param formMessageId
+	 *            ID for the messages
+	 * @return "forms.{formMessageId}."
+	 */
+	static String prefix(final String formMessageId) {
+		String prefix = PREFIXES.get(formMessageId);
+		if (prefix == null) {
+			prefix = MESSAGE_KEY_FORMS + "." + formMessageId + ".";
+			if (PREFIXES.size() < MAX_CACHED_PREFIXES) {
+				PREFIXES.put(formMessageId, prefix);
+			}
+		}
+		return prefix;
+	}
+
+	/**
+	 * @param form
+	 *            The form.
+	 * @param key
+	 *            The field.
+	 * @return the submitted value of the field, null if there is no one.
+	 */
+	static String value(final Form<?> form, final String key) {
+		final Form.Field field = form.field(key);
+		return field == null ? null : field.getValue().orElse(null);
+	}
+
+	@Override
+	public Object get(final Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+
+		if (MESSAGE_KEY_ERROR.equals(key)) {
+			return form.getGlobalError().map(error -> prefix + error.message()).orElse(null);
+		}
+
+		final List<ValidationError> errors = form.errors((String) key);
+		if (errors == null || errors.isEmpty() || StringUtils.isEmpty(errors.get(0).key())) {
+			return null;
+		}
+		return new FieldErrorMap(errors.get(0));
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		if (entries == null) {
+			final Map<String, Object> map = new LinkedHashMap<>();
+			for (ValidationError validationError : form.allErrors()) {
+				// Only one error is out by time, no mess with a set of errors.
+				final String key = validationError.key();
+				if (StringUtils.isEmpty(key)) {
+					map.putIfAbsent(MESSAGE_KEY_ERROR, prefix + validationError.message());
+				} else {
+					map.putIfAbsent(key, new FieldErrorMap(validationError));
+				}
+			}
+			entries = Collections.unmodifiableMap(map).entrySet();
+		}
+		return entries;
+	}
+
+	/**
+	 * Error and value of one field, both are computed on demand. There is no
+	 * value if the field has not been submitted.
+	 */
+	private final class FieldErrorMap extends AbstractMap<String, Object> {
+		private final ValidationError error;
+
+		FieldErrorMap(final ValidationError error) {
+			this.error = error;
+		}
+
+		@Override
+		public Object get(final Object key) {
+			if (MESSAGE_KEY_ERROR.equals(key)) {
+				return prefix + error.key() + "." + error.message();
+			}
+			if (MESSAGE_KEY_VALUE.equals(key)) {
+				return value(form, error.key());
+			}
+			return null;
+		}
+
+		@Override
+		public boolean containsKey(final Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			final Map<String, Object> map = new HashMap<>(4);
+			map.put(MESSAGE_KEY_ERROR, get(MESSAGE_KEY_ERROR));
+			final Object value = get(MESSAGE_KEY_VALUE);
+			if (value != null) {
+				map.put(MESSAGE_KEY_VALUE, value);
+			}
+			return map.entrySet();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import com.github.jknack.handlebars.Context;
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.ValueResolver;
+
+/**
+ * The root context of the site-wide data. It is built once per data and
+ * shared by all renders.
+ *
+ * The child contexts of Handlebars share the context data ("@root", the
+ * partials, the invocation stack) of the parent, so a render must not be a
+ * plain child of the shared context. The {@link #newRender(Object) render
+ * context} is a child with its own context data, all the render contexts
+ * under it share that one.
+ */
+final class GlobalContext extends Context {
+
+	private GlobalContext(final Object model) {
+		super(model);
+	}
+
+	/**
+	 * @param model
+	 *            The site-wide data.
+	 * @param resolvers
+	 *            Value resolvers of the renders.
+	 * @return The shared context of the data.
+	 */
+	static GlobalContext of(final Object model, final ValueResolver... resolvers) {
+		// Handlebars wires the child, the detached seed only makes it ours.
+		final GlobalContext context = (GlobalContext) Context.newBuilder(new GlobalContext(null), model)
+				.resolver(resolvers)
+				.build();
+		context.parent = null;
+		// Nothing writes here, the renders write to their own context data.
+		context.data = Collections.emptyMap();
+		return context;
+	}
+
+	/**
+	 * @param model
+	 *            The data of the render or its deepest layer.
+	 * @return The child context with its own context data, like the root
+	 *         context of Handlebars has.
+	 */
+	Context newRender(final Object model) {
+		final GlobalContext context = (GlobalContext) Context.newContext(this, model);
+
+		final LinkedList<Map<String, Template>> inlinePartials = new LinkedList<>();
+		inlinePartials.push(new HashMap<>());
+
+		context.data = new HashMap<>();
+		context.data.put(PARTIALS, new HashMap<String, Template>());
+		context.data.put(INLINE_PARTIALS, inlinePartials);
+		context.data.put(INVOCATION_STACK, new LinkedList<>());
+		context.data.put(Renderer.ROOT_DATA, model);
+		return context;
+	}
+
+	@Override
+	protected Context newChildContext(final Object model) {
+		return new GlobalContext(model);
+	}
+}
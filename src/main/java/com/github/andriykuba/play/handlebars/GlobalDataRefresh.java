@@ -0,0 +1,101 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Refresh of the site-wide data in the background. The renders never call the
+ * provider, they use the last data it returned. If the provider fails, the
+ * failure is logged and the last data is kept until the next refresh.
+ */
+final class GlobalDataRefresh {
+	private final static Logger LOGGER = LoggerFactory.getLogger(GlobalDataRefresh.class);
+
+	private final Renderer renderer;
+
+	/**
+	 * Created with the first provider, the thread is a daemon.
+	 */
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Refresh of the current provider, null if the data is static.
+	 */
+	private ScheduledFuture<?> refresh;
+
+	/**
+	 * Changed with every data, the late refresh of the replaced provider is
+	 * dropped.
+	 */
+	private long generation;
+
+	/**
+	 * @param renderer
+	 *            Renderer that gets the data.
+	 */
+	GlobalDataRefresh(final Renderer renderer) {
+		this.renderer = renderer;
+	}
+
+	/**
+	 * Set the static data, the refresh of the previous provider is stopped.
+	 *
+	 * @param data
+	 *            The site-wide data, null to remove.
+	 */
+	synchronized void set(final Object data) {
+		stop();
+		renderer.setGlobalData(data);
+	}
+
+	/**
+	 * Set the data of the provider and refresh it periodically. The first
+	 * data is provided in the calling thread, its failure is thrown.
+	 *
+	 * @param provider
+	 *            Provider of the site-wide data.
+	 * @param interval
+	 *            Delay between the refreshes.
+	 * @param unit
+	 *            Unit of the delay.
+	 */
+	synchronized void set(final Supplier<?> provider, final long interval, final TimeUnit unit) {
+		stop();
+		renderer.setGlobalData(provider.get());
+
+		if (scheduler == null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "handlebars-global-data");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		final long current = generation;
+		refresh = scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				final Object data = provider.get();
+				synchronized (this) {
+					if (generation == current) {
+						renderer.setGlobalData(data);
+					}
+				}
+			} catch (RuntimeException e) {
+				LOGGER.warn("Handlebars global data could not be refreshed, the previous data is kept", e);
+			}
+		}, interval, interval, unit);
+	}
+
+	private void stop() {
+		generation++;
+		if (refresh != null) {
+			refresh.cancel(false);
+			refresh = null;
+		}
+	}
+}
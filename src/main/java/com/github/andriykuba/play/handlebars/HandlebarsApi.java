@@ -1,26 +1,44 @@
 package com.github.andriykuba.play.handlebars;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import com.github.andriykuba.play.handlebars.helpers.HelperRegistration;
 import com.github.andriykuba.play.handlebars.helpers.PlayHelpers;
-import com.github.andriykuba.play.handlebars.helpers.StringHelpers;
+import com.github.andriykuba.play.handlebars.io.BundleTemplateLoader;
+import com.github.andriykuba.play.handlebars.helpers.StreamingEachHelper;
 import com.github.jknack.handlebars.Context;
+import com.github.jknack.handlebars.EscapingStrategy;
 import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Helper;
+import com.github.jknack.handlebars.HelperRegistry;
 import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.cache.GuavaTemplateCache;
-import com.github.jknack.handlebars.context.FieldValueResolver;
-import com.github.jknack.handlebars.context.MapValueResolver;
-import com.github.jknack.handlebars.JsonNodeValueResolver;
 import com.github.jknack.handlebars.io.FileTemplateLoader;
 import com.github.jknack.handlebars.io.TemplateLoader;
 import com.github.jknack.handlebars.io.TemplateSource;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
+import akka.stream.Materializer;
 import com.typesafe.config.Config;
 import play.Environment;
 import play.i18n.MessagesApi;
@@ -35,16 +53,57 @@ public class HandlebarsApi {
 
 	public final static String LANGUAGE_PROPERTY = "language";
 
+	/**
+	 * The partial name of the page in the layout.
+	 */
+	public final static String LAYOUT_BODY = "body";
+
 	/**
 	 * Original handlebars engine.
 	 */
 	private final Handlebars handlebars;
 
+	private final PlayHelpers playHelpers;
+
 	private final MessagesApi messagesApi;
 
 	private final AssetsFinder assetsFinder;
-	
-	
+
+	/**
+	 * The "each" helper that iterates over streams, iterators and publishers.
+	 */
+	private final StreamingEachHelper eachHelper = new StreamingEachHelper();
+
+	/**
+	 * The render core of all renders.
+	 */
+	private final Renderer renderer;
+
+	/**
+	 * Parallel renders of the many data objects.
+	 */
+	private final BatchRenderer batchRenderer;
+
+	/**
+	 * The site-wide data of the renderer.
+	 */
+	private final GlobalDataRefresh globalData;
+
+	/**
+	 * The configured themes, could be none.
+	 */
+	private final Themes themes;
+
+	/**
+	 * Data paths of the templates.
+	 */
+	private final TemplateProjections projections;
+
+	/**
+	 * Hits of the templates, routes and assets for the warmup.
+	 */
+	private final CacheHits cacheHits;
+
 	/**
 	 * Initialize Handlebars engine, register cache, handlers.
 	 * 
@@ -71,16 +130,20 @@ public class HandlebarsApi {
 		// Initialize the properties.
 		final Properties properties = new Properties(config);
 
-		// Get the template folder.
-		final File rootFolder = 
-				(environment == null) ? null : environment.getFile(properties.getDirectory());
+		// Templates are read from the bundle or from the folder.
+		final TemplateLoader loader = createLoader(environment, properties);
 
-		// Put the template extension.
-		final TemplateLoader loader = 
-				(rootFolder == null) ? null : new FileTemplateLoader(rootFolder, properties.getExtension());
+		// Themes override the templates, all of them share one engine and cache.
+		themes = Themes.create(properties.getThemes(), properties.isCacheEnabled(), loader,
+				location -> properties.getBundle().isEmpty()
+						? new FileTemplateLoader(environment.getFile(location), properties.getExtension())
+						: createBundleLoader(environment, location, properties.getExtension()));
 
 		// Initialize the engine with the cache
-		handlebars = new Handlebars(loader);
+		handlebars = new Handlebars(themes.loader(loader));
+
+		// The templates take the escaping when they are compiled.
+		handlebars.with(createEscapingStrategy(environment, properties.getEscaping()));
 
 		if (properties.isCacheEnabled()) {
 			// Initialize the cache. Could be builded from configuration as well
@@ -91,13 +154,314 @@ public class HandlebarsApi {
 			final GuavaTemplateCache guavaCache = new GuavaTemplateCache(cache);
 			handlebars.with(guavaCache);
 		}
+		projections = new TemplateProjections(handlebars, themes, properties.isCacheEnabled());
+
+		// Stop the pathological renders.
+		final RenderLimits renderLimits = properties.getLimits();
+		final RenderLimits limits = renderLimits.isEnabled() ? renderLimits : null;
+
+		// Iterate over the one-shot data sources as well. The registry must be
+		// replaced before the helpers are added.
+		eachHelper.setPublisherTimeout(properties.getStreamingTimeoutSeconds(), TimeUnit.SECONDS);
+		final HelperRegistry helpers = new StreamingEachHelper.Registry(eachHelper);
+
+		// Profile a part of the renders. Nothing is wrapped if it is disabled.
+		final double sampleRate = properties.getProfilingSampleRate();
+		final RenderProfiler profiler;
+		if (sampleRate > 0) {
+			profiler = new RenderProfiler(sampleRate, properties.getProfilingThresholdMillis());
+			handlebars.with(new RenderProfiler.ProfilingTemplateCache(handlebars.getCache()));
+			handlebars.with(new RenderProfiler.ProfilingHelperRegistry(helpers));
+		} else {
+			profiler = null;
+			handlebars.with(helpers);
+		}
 
-		// Add helpers. 
+		renderer = new Renderer(profiler, limits);
+		batchRenderer = new BatchRenderer(renderer, themes);
+		globalData = new GlobalDataRefresh(renderer);
+
+		// Site-wide data from the configuration, if any.
+		final Map<String, Object> globals = properties.getGlobals();
+		if (globals != null) {
+			setGlobalData(Collections.unmodifiableMap(globals));
+		}
+
+		// Add helpers, without the reflection.
 		// MessagesApi is a singleton so we can use it in helpers.
 		// All assets helpers will use this AssetsFinder.
-		PlayHelpers helpers = new PlayHelpers(messagesApi, assetsFinder, environment);
-		handlebars.registerHelpers(helpers);
-		handlebars.registerHelpers(StringHelpers.class);
+		// The cached URLs are escaped once, with the escaping of the engine.
+		playHelpers = new PlayHelpers(messagesApi, assetsFinder, environment);
+		HelperRegistration.register(handlebars, playHelpers);
+		cacheHits = new CacheHits(handlebars, themes, playHelpers);
+	}
+
+	/**
+	 * Create the templates loader. The bundle has priority over the templates
+	 * folder. The bundle is memory-mapped, the classpath bundle is copied to
+	 * a temporary file first.
+	 * 
+	 * @param environment
+	 *            Play environment, could be null for the inline rendering.
+	 * @param properties
+	 *            Handlebars configuration.
+	 * @return The loader or null if there is no environment.
+	 */
+	private static TemplateLoader createLoader(final Environment environment, final Properties properties) {
+		if (environment == null) {
+			return null;
+		}
+
+		final String bundle = properties.getBundle();
+		if (bundle.isEmpty()) {
+			// Get the template folder.
+			final File rootFolder = environment.getFile(properties.getDirectory());
+
+			// Put the template extension.
+			return (rootFolder == null) ? null : new FileTemplateLoader(rootFolder, properties.getExtension());
+		}
+
+		return createBundleLoader(environment, bundle, properties.getExtension());
+	}
+
+	/**
+	 * The bundle is looked up as a file first and as a classpath resource
+	 * next.
+	 * 
+	 * @param environment
+	 *            Play environment.
+	 * @param bundle
+	 *            The bundle file or classpath resource.
+	 * @param extension
+	 *            The extension of the template files.
+	 * @return The loader of the bundle.
+	 */
+	private static TemplateLoader createBundleLoader(final Environment environment, final String bundle,
+			final String extension) {
+		try {
+			final File bundleFile = environment.getFile(bundle);
+			if (bundleFile != null && bundleFile.isFile()) {
+				return BundleTemplateLoader.fromFile(bundleFile, extension);
+			}
+
+			final String resource = bundle.startsWith("/") ? bundle.substring(1) : bundle;
+			final InputStream stream = environment.resourceAsStream(resource);
+			if (stream != null) {
+				return BundleTemplateLoader.fromStream(stream, resource, extension);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		throw new RuntimeException("Templates bundle \"" + bundle + "\" is not found");
+	}
+
+	/**
+	 * Create the escaping of the variables.
+	 * 
+	 * @param environment
+	 *            Play environment, used for getting class loader. Could be
+	 *            null for the inline rendering.
+	 * @param escaping
+	 *            "html" for the {@link HtmlEscapingStrategy}, "handlebars"
+	 *            for the default escaping of the engine or the class name of
+	 *            the {@link EscapingStrategy}.
+	 * @return The escaping strategy.
+	 */
+	private static EscapingStrategy createEscapingStrategy(final Environment environment, final String escaping) {
+		switch (escaping) {
+		case "html":
+			return HtmlEscapingStrategy.INSTANCE;
+		case "handlebars":
+			return EscapingStrategy.DEF;
+		default:
+			try {
+				final ClassLoader classLoader = (environment == null || environment.classLoader() == null)
+						? HandlebarsApi.class.getClassLoader() : environment.classLoader();
+				return (EscapingStrategy) Class.forName(escaping, true, classLoader).newInstance();
+			} catch (ReflectiveOperationException | ClassCastException e) {
+				throw new RuntimeException("Escaping strategy \"" + escaping + "\" is not found", e);
+			}
+		}
+	}
+
+	/**
+	 * Register the site-wide data, like navigation, feature flags or
+	 * configuration values. It is the root layer of every render, so it is
+	 * visible in every template but the render data wins. The data is reused
+	 * by all renders and must not be modified.
+	 * 
+	 * It replaces the "handlebars.globals" configuration.
+	 * 
+	 * @param data
+	 *            Immutable site-wide data, null to remove.
+	 */
+	public void setGlobalData(final Object data) {
+		globalData.set(data);
+	}
+
+	/**
+	 * Register the provider of the site-wide data, see
+	 * {@link #setGlobalData(Object) setGlobalData}. The provider is called
+	 * now, then in the background once per refresh interval, the renders
+	 * reuse the last returned data. If the refresh fails, it is logged and
+	 * the last data is kept.
+	 * 
+	 * @param provider
+	 *            Provider of the immutable site-wide data, the first call
+	 *            failure is thrown.
+	 * @param refreshInterval
+	 *            Delay between the refreshes.
+	 * @param unit
+	 *            Unit of the refresh interval.
+	 */
+	public void setGlobalDataProvider(final Supplier<?> provider, final long refreshInterval, final TimeUnit unit) {
+		globalData.set(provider, refreshInterval, unit);
+	}
+
+	/**
+	 * Set the materializer for the Akka {@code Source} data in the "each"
+	 * helper. Iterators, streams and publishers do not need it.
+	 * 
+	 * @param materializer
+	 *            Materializer of the application.
+	 */
+	public void setMaterializer(final Materializer materializer) {
+		eachHelper.setMaterializer(materializer);
+	}
+
+	/**
+	 * Register the application helper. A lambda or a {@link Helper}
+	 * implementation is called directly, unlike the methods of the helper
+	 * source in {@code getHandlebars().registerHelpers(source)}, which are
+	 * called through the reflection.
+	 * 
+	 * @param name
+	 *            Name of the helper in the templates.
+	 * @param helper
+	 *            The helper.
+	 * @param <T>
+	 *            Type of the helper context.
+	 */
+	public <T> void registerHelper(final String name, final Helper<T> helper) {
+		handlebars.registerHelper(name, helper);
+	}
+
+	/**
+	 * Set the receiver of the slow renders breakdown, see the
+	 * "handlebars.profiling" configuration. The profiles are logged by
+	 * default. It does nothing if the profiling is disabled.
+	 * 
+	 * @param listener
+	 *            Receiver of the profiles, called in the render thread.
+	 */
+	public void setProfileListener(final Consumer<? super RenderProfile> listener) {
+		final RenderProfiler profiler = renderer.getProfiler();
+		if (profiler != null) {
+			profiler.setListener(listener);
+		}
+	}
+
+	/**
+	 * Start counting the hits of the templates, routes and assets, so the
+	 * hot keys could be saved with {@link #cacheSnapshot() cacheSnapshot}.
+	 */
+	public void countCacheHits() {
+		cacheHits.start();
+	}
+
+	/**
+	 * @return the most hit templates, routes and assets, empty if the hits
+	 *         are not counted.
+	 */
+	public CacheSnapshot cacheSnapshot() {
+		return cacheHits.snapshot();
+	}
+
+	/**
+	 * Compile the templates and resolve the routes and assets of the
+	 * snapshot, so they are in the caches before the first request. The keys
+	 * that are not valid any more, like the removed templates, are skipped.
+	 * 
+	 * @param snapshot
+	 *            The hot keys of the previous run.
+	 * @return Count of the skipped keys.
+	 */
+	public int warmUp(final CacheSnapshot snapshot) {
+		return cacheHits.warmUp(snapshot);
+	}
+
+	/**
+	 * Run the renders with the theme, see "handlebars.themes" configuration.
+	 * The templates of the theme override the base templates, the partials
+	 * follow the theme as well. The batch and asynchronous renders started in
+	 * the action keep the theme.
+	 * 
+	 * @param theme
+	 *            The theme name, null for the base templates.
+	 * @param action
+	 *            Action that renders the templates.
+	 * @param <T>
+	 *            The result type.
+	 * @return The result of the action.
+	 */
+	public <T> T withTheme(final String theme, final Supplier<T> action) {
+		return themes.with(theme, action);
+	}
+
+	/**
+	 * @return The configured themes.
+	 */
+	public Set<String> getThemes() {
+		return themes.names();
+	}
+
+	/**
+	 * @return Count of the renders stopped by the "handlebars.limits", by the
+	 *         limit. Empty if there are no limits.
+	 */
+	public Map<RenderLimitExceededException.Limit, Long> getExceededLimits() {
+		return renderer.getExceededLimits();
+	}
+
+	/**
+	 * @return The moving estimate of the output size in chars by the template
+	 *         file name. The output buffer of the render is presized to it.
+	 */
+	public Map<String, Integer> getOutputSizeEstimates() {
+		return renderer.getOutputSizeEstimates();
+	}
+
+	/**
+	 * Data paths that the template and its partials read, like
+	 * "user.address.city". The paths are collected once per template and
+	 * theme. If the templates are not cached, they are collected again when
+	 * the template or its partials are modified. See
+	 * {@link TemplateDataPaths} for the limits of the analysis.
+	 * 
+	 * The page of a layout is a partial of the layout, so the paths of the
+	 * layout and the page are collected separately.
+	 * 
+	 * @param templateName
+	 *            Name of the template.
+	 * @return The data paths of the template.
+	 */
+	public Set<String> getDataPaths(final String templateName) {
+		return projections.get(templateName).getPaths();
+	}
+
+	/**
+	 * Copy the data down to the paths the template reads, see
+	 * {@link #getDataPaths(String) getDataPaths} and {@link DataProjection}.
+	 * 
+	 * @param templateName
+	 *            Name of the template.
+	 * @param data
+	 *            Play JSON, Jackson JSON or map data of the template.
+	 * @return The projected data.
+	 */
+	public Object project(final String templateName, final Object data) {
+		return projections.get(templateName).project(data);
 	}
 
 	public MessagesApi getMessagesApi() {
@@ -129,6 +493,30 @@ public class HandlebarsApi {
 		return render(false, templateName, data, languageCode);
 	}
 
+	/**
+	 * Render the template with the data and the additional data layers. 
+	 * Checked exceptions converted to unchecked.
+	 * 
+	 * Layers are not merged with the data. They are parent contexts of the
+	 * data, so a path that is not resolved in the data is looked up in the
+	 * first layer, then in the second one and so on. The data wins if the same
+	 * path is present in the data and in a layer.
+	 * 
+	 * @param templateName
+	 *            Name of the template to be rendered.
+	 * @param data
+	 *            Data to fill the template.
+	 * @param layers
+	 *            Additional data, like flash or session user.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @return Compiled and filled with data.
+	 * 
+	 */
+	public String render(final String templateName, final Object data, final List<?> layers, final String languageCode) {
+		return render(false, templateName, data, layers, languageCode);
+	}
+
 	/**
 	 * Render the inline template with the data. 
 	 * Checked exceptions converted to unchecked.
@@ -146,23 +534,300 @@ public class HandlebarsApi {
 		return render(true, template, data, languageCode);
 	}
 	
+	/**
+	 * Render the inline template with the data and the additional data layers,
+	 * see {@link #render(String, Object, List, String) render}. 
+	 * Checked exceptions converted to unchecked.
+	 * 
+	 * @param template
+	 *            Template to be rendered.
+	 * @param data
+	 *            Data to fill the template.
+	 * @param layers
+	 *            Additional data, like flash or session user.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @return Compiled and filled with data.
+	 * 
+	 */
+	public String renderInline(final String template, final Object data, final List<?> layers, final String languageCode) {
+		return render(true, template, data, layers, languageCode);
+	}
+
+	/**
+	 * Render the template when the top level {@link CompletionStage} values of
+	 * the data map are completed, in the common fork-join pool. See
+	 * {@link #renderAsync(String, Object, String, Executor) renderAsync}.
+	 *
+	 * @param templateName
+	 *            Name of the template to be rendered.
+	 * @param data
+	 *            Data to fill the template.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @return Compiled and filled with data.
+	 */
+	public CompletionStage<String> renderAsync(final String templateName, final Object data, final String languageCode) {
+		return renderAsync(templateName, data, languageCode, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Render the template when the top level {@link CompletionStage} values of
+	 * the data map are completed. The sections of the page are fetched in
+	 * parallel and no thread is blocked while waiting for them.
+	 *
+	 * A failed section fails the render only if the template reads it. Deeper
+	 * completion stages and the {@link LazyValueResolver#lazy(Supplier) lazy}
+	 * values are resolved when the template reads them, the deeper stage
+	 * blocks the render thread until it is completed.
+	 *
+	 * @param templateName
+	 *            Name of the template to be rendered.
+	 * @param data
+	 *            Data to fill the template.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @param executor
+	 *            Executor for the render.
+	 * @return Compiled and filled with data.
+	 */
+	public CompletionStage<String> renderAsync(
+			final String templateName,
+			final Object data,
+			final String languageCode,
+			final Executor executor) {
+		final String theme = themes.current();
+		final List<CompletableFuture<?>> sections = new ArrayList<>();
+		if (data instanceof Map) {
+			for (Object value : ((Map<?, ?>) data).values()) {
+				if (value instanceof CompletionStage) {
+					// Wait for the failed section as well, the template decides.
+					sections.add(((CompletionStage<?>) value).toCompletableFuture().handle((result, error) -> null));
+				}
+			}
+		}
+
+		return CompletableFuture
+				.allOf(sections.toArray(new CompletableFuture<?>[sections.size()]))
+				.thenApplyAsync(ignored -> withTheme(theme, () -> render(templateName, data, languageCode)), executor);
+	}
+
+	/**
+	 * Render the template straight to the output, the page is not kept in
+	 * the memory. Together with the streamed data in a top-level "each"
+	 * helper, a big export is rendered in the constant memory. The output of
+	 * a block, like "if" or "with", is buffered until the block ends, so an
+	 * "each" inside of it keeps its whole output in the memory.
+	 * Checked exceptions converted to unchecked.
+	 * 
+	 * @param templateName
+	 *            Name of the template to be rendered.
+	 * @param data
+	 *            Data to fill the template.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @param out
+	 *            The output, it is not flushed nor closed.
+	 */
+	public void render(final String templateName, final Object data, final String languageCode, final Writer out) {
+		render(templateName, data, Collections.emptyList(), languageCode, out);
+	}
+
+	/**
+	 * Render the template with the data and the additional data layers
+	 * straight to the output, see {@link #render(String, Object, String, Writer) render}.
+	 * 
+	 * @param templateName
+	 *            Name of the template to be rendered.
+	 * @param data
+	 *            Data to fill the template.
+	 * @param layers
+	 *            Additional data, like flash or session user.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @param out
+	 *            The output, it is not flushed nor closed.
+	 */
+	public void render(
+			final String templateName, 
+			final Object data, 
+			final List<?> layers, 
+			final String languageCode, 
+			final Writer out) {
+		try {
+			cacheHits.template(templateName);
+			final Template template = handlebars.compile(templateName);
+			renderer.apply(template, renderer.newContext(data, layers, languageCode), out);
+		} catch (Exception e) {
+			throw Renderer.failure(e);
+		}
+	}
+
 	private String render(final boolean isInline, final String source, final Object data, final String languageCode) {
+		return render(isInline, source, data, Collections.emptyList(), languageCode);
+	}
+
+	private String render(
+			final boolean isInline, 
+			final String source, 
+			final Object data, 
+			final List<?> layers, 
+			final String languageCode) {
 		try {
+			if (!isInline) {
+				cacheHits.template(source);
+			}
 			final Template template = isInline ? handlebars.compileInline(source) : handlebars.compile(source);
+			return renderer.render(template, renderer.newContext(data, layers, languageCode), null);
+		} catch (Exception e) {
+			throw Renderer.failure(e);
+		}
+	}
+
+	/**
+	 * Render the page in to the layout, see
+	 * {@link #renderLayout(String, Map, Object, List, String) renderLayout}.
+	 * The layout includes the page as the {@value #LAYOUT_BODY} partial.
+	 * 
+	 * @param layoutName
+	 *            Name of the layout template.
+	 * @param pageName
+	 *            Name of the page template.
+	 * @param data
+	 *            Data to fill the templates.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @return Compiled and filled with data.
+	 */
+	public String renderLayout(final String layoutName, final String pageName, final Object data, final String languageCode) {
+		return renderLayout(layoutName, Collections.singletonMap(LAYOUT_BODY, pageName), data, 
+				Collections.emptyList(), languageCode);
+	}
+
+	/**
+	 * Render the layout with the slot templates in one pass. Every slot
+	 * template is available in the layout as the partial with the slot name,
+	 * like {@code {{> body}}}, it has priority over the partial files of the
+	 * same name. The layout and the slots share one context and write in to
+	 * one output buffer, so there are no intermediate strings.
+	 * Checked exceptions converted to unchecked.
+	 * 
+	 * @param layoutName
+	 *            Name of the layout template.
+	 * @param slots
+	 *            Names of the templates by the slot names.
+	 * @param data
+	 *            Data to fill the templates.
+	 * @param layers
+	 *            Additional data, like flash or session user.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @return Compiled and filled with data.
+	 */
+	public String renderLayout(
+			final String layoutName, 
+			final Map<String, String> slots, 
+			final Object data, 
+			final List<?> layers, 
+			final String languageCode) {
+		try {
+			cacheHits.template(layoutName);
+			final Template layout = handlebars.compile(layoutName);
 
-			final Context context = Context.newBuilder(data).combine(LANGUAGE_PROPERTY, languageCode)
-					.resolver(
-							ScalaJsonValueResolver.INSTANCE,
-							JsonNodeValueResolver.INSTANCE, 
-							MapValueResolver.INSTANCE, 
-							FieldValueResolver.INSTANCE)
-					.build();
+			final Context context = renderer.newContext(data, layers, languageCode);
 
-			return template.apply(context);
+			// The inline partials of the render, the layout sees them first.
+			final LinkedList<Map<String, Template>> inlinePartials = context.data(Context.INLINE_PARTIALS);
+			final Map<String, Template> partials = inlinePartials.getLast();
+			for (Map.Entry<String, String> slot : slots.entrySet()) {
+				cacheHits.template(slot.getValue());
+				partials.put(slot.getKey(), handlebars.compile(slot.getValue()));
+			}
 
+			return renderer.render(layout, context, null);
+		} catch (Exception e) {
+			throw Renderer.failure(e);
+		}
+	}
+
+	/**
+	 * Render the template for every data object in parallel, in the common
+	 * fork-join pool. See {@link #renderAll(String, Iterable, String, Executor, Consumer) renderAll}.
+	 * 
+	 * @param templateName
+	 *            Name of the template to be rendered.
+	 * @param data
+	 *            Data objects, one per render. Use {@code stream::iterator}
+	 *            for a stream.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @return Results in the order of the data.
+	 */
+	public List<String> renderAll(final String templateName, final Iterable<?> data, final String languageCode) {
+		return renderAll(templateName, data, languageCode, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Render the template for every data object in parallel, in the given
+	 * executor. See {@link #renderAll(String, Iterable, String, Executor, Consumer) renderAll}.
+	 * 
+	 * @param templateName
+	 *            Name of the template to be rendered.
+	 * @param data
+	 *            Data objects, one per render.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @param executor
+	 *            Executor for the renders.
+	 * @return Results in the order of the data.
+	 */
+	public List<String> renderAll(
+			final String templateName, 
+			final Iterable<?> data, 
+			final String languageCode, 
+			final Executor executor) {
+		final List<String> results = new ArrayList<>();
+		renderAll(templateName, data, languageCode, executor, results::add);
+		return results;
+	}
+
+	/**
+	 * Render the template for every data object in parallel and pass results
+	 * to the consumer in the order of the data. It is meant for the bulk
+	 * output, like emails or static pages.
+	 * 
+	 * The template is compiled once. Every worker thread reuses its own output
+	 * buffer. Only a few renders per processor are in flight, the next data
+	 * object is taken only when the consumer took the oldest result, so the
+	 * slow consumer holds back the renders. The consumer is called in the
+	 * caller thread. Checked exceptions converted to unchecked.
+	 * 
+	 * @param templateName
+	 *            Name of the template to be rendered.
+	 * @param data
+	 *            Data objects, one per render.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @param executor
+	 *            Executor for the renders.
+	 * @param consumer
+	 *            Consumer of the results.
+	 */
+	public void renderAll(
+			final String templateName, 
+			final Iterable<?> data, 
+			final String languageCode, 
+			final Executor executor,
+			final Consumer<? super String> consumer) {
+		cacheHits.template(templateName);
+
+		final Template template;
+		try {
+			template = handlebars.compile(templateName);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
+		batchRenderer.renderAll(template, data, languageCode, executor, consumer);
 	}
 	
 	/**
@@ -181,6 +846,67 @@ public class HandlebarsApi {
 		return new HtmlContent(render(templateName, data, languageCode));
 	}
 
+	/**
+	 * Calls {@link #render(String, Object, List, String) render} method and
+	 * convert result to the {@link play.twirl.api.Content Content}.
+	 * 
+	 * @param templateName
+	 *            The name of the template to be used
+	 * @param data
+	 *            This data would be used within template
+	 * @param layers
+	 *            Additional data, like flash or session user
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @return The same object as standard Play template template engine returns
+	 */
+	public Content html(final String templateName, final Object data, final List<?> layers, final String languageCode) {
+		return new HtmlContent(render(templateName, data, layers, languageCode));
+	}
+
+	/**
+	 * Calls {@link #renderLayout(String, String, Object, String) renderLayout}
+	 * method and convert result to the {@link play.twirl.api.Content Content}.
+	 * 
+	 * @param layoutName
+	 *            The name of the layout template
+	 * @param pageName
+	 *            The name of the page template
+	 * @param data
+	 *            This data would be used within templates
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @return The same object as standard Play template template engine returns
+	 */
+	public Content html(final String layoutName, final String pageName, final Object data, final String languageCode) {
+		return new HtmlContent(renderLayout(layoutName, pageName, data, languageCode));
+	}
+
+	/**
+	 * Calls {@link #renderLayout(String, Map, Object, List, String) renderLayout}
+	 * method and convert result to the {@link play.twirl.api.Content Content}.
+	 * 
+	 * @param layoutName
+	 *            The name of the layout template
+	 * @param slots
+	 *            Names of the templates by the slot names
+	 * @param data
+	 *            This data would be used within templates
+	 * @param layers
+	 *            Additional data, like flash or session user
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @return The same object as standard Play template template engine returns
+	 */
+	public Content html(
+			final String layoutName, 
+			final Map<String, String> slots, 
+			final Object data, 
+			final List<?> layers, 
+			final String languageCode) {
+		return new HtmlContent(renderLayout(layoutName, slots, data, layers, languageCode));
+	}
+
 	/**
 	 * Proxy handlebars configuration for an easy access.
 	 */
@@ -189,6 +915,17 @@ public class HandlebarsApi {
 		final static String DIRECTORY = "directory";
 		final static String EXTENSION = "extension";
 		final static String IS_CASHE_ENABLED = "isCacheEnabled";
+		final static String BUNDLE = "bundle";
+		final static String GLOBALS = "globals";
+		final static String THEMES = "themes";
+		final static String ESCAPING = "escaping";
+		final static String LIMITS_OUTPUT_CHARS = "limits.maxOutputChars";
+		final static String LIMITS_EACH_ITERATIONS = "limits.maxEachIterations";
+		final static String LIMITS_PARTIAL_DEPTH = "limits.maxPartialDepth";
+		final static String LIMITS_RENDER_MILLIS = "limits.maxRenderMillis";
+		final static String PROFILING_SAMPLE_RATE = "profiling.sampleRate";
+		final static String PROFILING_THRESHOLD_MILLIS = "profiling.thresholdMillis";
+		final static String STREAMING_TIMEOUT_SECONDS = "streaming.timeoutSeconds";
 
 		/**
 		 * the handlebars configuration.
@@ -221,5 +958,74 @@ public class HandlebarsApi {
 			return config.getString(EXTENSION);
 		}
 
+		/**
+		 * @return the templates bundle file or classpath resource, empty if
+		 *         templates are read from the directory.
+		 */
+		String getBundle() {
+			return config.hasPath(BUNDLE) ? config.getString(BUNDLE) : "";
+		}
+
+		/**
+		 * @return the template folders of the themes by the theme name, empty
+		 *         if there are no themes.
+		 */
+		Map<String, Object> getThemes() {
+			return config.hasPath(THEMES) ? config.getObject(THEMES).unwrapped() : Collections.emptyMap();
+		}
+
+		/**
+		 * @return the escaping of the variables, "html" by default.
+		 */
+		String getEscaping() {
+			return config.hasPath(ESCAPING) ? config.getString(ESCAPING) : "html";
+		}
+
+		/**
+		 * @return the site-wide data, null if it is not configured.
+		 */
+		Map<String, Object> getGlobals() {
+			return config.hasPath(GLOBALS) ? config.getObject(GLOBALS).unwrapped() : null;
+		}
+
+		/**
+		 * @return the per render limits, 0 by default - no limit.
+		 */
+		RenderLimits getLimits() {
+			return new RenderLimits(
+					getLong(LIMITS_OUTPUT_CHARS), 
+					getLong(LIMITS_EACH_ITERATIONS), 
+					(int) getLong(LIMITS_PARTIAL_DEPTH), 
+					getLong(LIMITS_RENDER_MILLIS));
+		}
+
+		private long getLong(final String path) {
+			return config.hasPath(path) ? config.getLong(path) : 0;
+		}
+
+		/**
+		 * @return the part of the renders to profile, from 0 to 1, 0 by
+		 *         default - the profiling is disabled.
+		 */
+		double getProfilingSampleRate() {
+			return config.hasPath(PROFILING_SAMPLE_RATE) ? config.getDouble(PROFILING_SAMPLE_RATE) : 0;
+		}
+
+		/**
+		 * @return the time of the profiled render to report it, 100 by
+		 *         default.
+		 */
+		long getProfilingThresholdMillis() {
+			return config.hasPath(PROFILING_THRESHOLD_MILLIS) ? config.getLong(PROFILING_THRESHOLD_MILLIS) : 100;
+		}
+
+		/**
+		 * @return how long the "each" helper waits for the next element of
+		 *         the publisher, 30 by default.
+		 */
+		long getStreamingTimeoutSeconds() {
+			return config.hasPath(STREAMING_TIMEOUT_SECONDS) ? config.getLong(STREAMING_TIMEOUT_SECONDS) : 30;
+		}
+
 	}
 }
@@ -9,6 +9,13 @@ public class HandlebarsModule extends play.api.inject.Module {
 
   @Override
   public Seq<Binding<?>> bindings(final Environment environment, final Configuration configuration) {
+    // Warm up the caches from the snapshot only if it is configured.
+    final com.typesafe.config.Config config = configuration.underlying();
+    if (config.hasPath(HandlebarsWarmup.FILE) && !config.getString(HandlebarsWarmup.FILE).isEmpty()) {
+      return seq(
+          bind(HandlebarsApi.class).toSelf(),
+          bind(HandlebarsWarmup.class).toSelf().eagerly());
+    }
     return seq(bind(HandlebarsApi.class).toSelf());
   }
 
@@ -16,7 +16,7 @@ import play.data.validation.ValidationError;
  */
 public class HandlebarsTools {
 	private final static String MESSAGE_KEY_ERROR = "error";
-	private final static String MESSAGE_KEY_FORMS = "forms";
+	private final static String MESSAGE_KEY_VALUE = "value";
 
 	private HandlebarsTools(){}
 	
@@ -31,6 +31,9 @@ public class HandlebarsTools {
 	 * The global error does not have the {formFieldId}. For example
 	 * "forms.login.error.unavailable"
 	 * 
+	 * The field map also has the "value" key with the submitted value of the
+	 * field, if it has been submitted.
+	 * 
 	 * Only one error per time returned, no array of errors like in the original
 	 * {@link play.data.Form#errors()}
 	 * 
@@ -42,6 +45,7 @@ public class HandlebarsTools {
 	 */
 	public static Map<String, Object> getErrorsAsMap(Form<?> form, String formMessageId) {
 		final Map<String, Object> formErrors = new HashMap<>();
+		final String prefix = FormErrorsMap.prefix(formMessageId);
 
 		final Map<String, List<ValidationError>> errors = form.errors();
 		for (Map.Entry<String, List<ValidationError>> error : errors.entrySet()) {
@@ -53,18 +57,20 @@ public class HandlebarsTools {
 				final String key = validationError.key();
 				if (!StringUtils.isEmpty(key)) {
 					// Field dependent error.
-					final String messageKey = new StringBuilder().append(MESSAGE_KEY_FORMS).append(".")
-							.append(formMessageId).append(".").append(key).append(".").append(validationError.message())
-							.toString();
+					final String messageKey = new StringBuilder(prefix).append(key).append(".")
+							.append(validationError.message()).toString();
 
 					HashMap<String, Object> fieldErrors = new HashMap<>();
 					fieldErrors.put(MESSAGE_KEY_ERROR, messageKey);
+					final String value = FormErrorsMap.value(form, key);
+					if (value != null) {
+						fieldErrors.put(MESSAGE_KEY_VALUE, value);
+					}
 
 					formErrors.put(key, fieldErrors);
 				} else {
 					// Global error.
-					final String messageKey = new StringBuilder().append(MESSAGE_KEY_FORMS).append(".")
-							.append(formMessageId).append(".").append(validationError.message()).toString();
+					final String messageKey = prefix + validationError.message();
 					formErrors.put(MESSAGE_KEY_ERROR, messageKey);
 				}
 			}
@@ -73,6 +79,23 @@ public class HandlebarsTools {
 		return formErrors;
 	}
 
+	/**
+	 * Lazy version of the {@link #getErrorsAsMap(Form, String) getErrorsAsMap}.
+	 * 
+	 * It returns the read only view of the form errors with the same keys.
+	 * The error and the value of the field are computed only when the template
+	 * reads them.
+	 * 
+	 * @param form
+	 *            The form to process
+	 * @param formMessageId
+	 *            ID for the messages
+	 * @return Read only map of message IDs
+	 */
+	public static Map<String, Object> getErrorsAsView(Form<?> form, String formMessageId) {
+		return new FormErrorsMap(form, formMessageId);
+	}
+
 	/**
 	 * Puts the {@code object} into the {@code base}.
 	 * 
@@ -91,68 +114,9 @@ public class HandlebarsTools {
 	 *            Path to put, like the path in JSON object
 	 * @param object
 	 *            Object to put
+	 * @see TemplateData
 	 */
-	@SuppressWarnings("unchecked")
 	public static void put(final Map<String, Object> base, final String keyPath, final Object object) {
-		// Need to be optimized
-
-		if (object == null) {
-			// No object, no operations.
-			return;
-		}
-
-		if (StringUtils.isEmpty(keyPath) && object instanceof Map) {
-			// Do the map merging
-			Map<String, Object> mapToPut = (Map<String, Object>) object;
-			for (Map.Entry<String, Object> entry : mapToPut.entrySet()) {
-				// The map value could be an map as well, so we go in to recursion.
-				put(base, entry.getKey(), entry.getValue());
-			}
-		} else {
-			// Put the object in to the map.
-			if (StringUtils.isEmpty(keyPath)) {
-				// It's not map merge, so we need to have a key.
-				throw new UnsupportedOperationException("Object must have a key to be putted in.");
-			} else {
-				String rootKey = StringUtils.substringBefore(keyPath, ".");
-				String tailPath = StringUtils.substringAfter(keyPath, ".");
-				Object value = base.get(rootKey);
-
-				if (StringUtils.isEmpty(tailPath)) {
-					// No more keys in the path.
-					if (value == null) {
-						// Just put an object in to the map with the given key.
-						base.put(rootKey, object);
-					} else if (value instanceof Map) {
-						put((Map<String, Object>) value, null, object);
-					} else {
-						// The value is already present.
-						throw new UnsupportedOperationException("The key \"" + rootKey + "\" is already assigned");
-					}
-				} else {
-					// There are more keys in the path.
-					if (value == null) {
-						// Just string path into a path of maps.
-						String[] pathElements = tailPath.split("\\.");
-						Map<String, Object> tail = new HashMap<>();
-						tail.put(pathElements[pathElements.length - 1], object);
-						for (int i = pathElements.length - 2; i >= 0; i--) {
-							// Convert path string in to the map branch
-							HashMap<String, Object> newTail = new HashMap<>();
-							newTail.put(pathElements[i], tail);
-							tail = newTail;
-						}
-						base.put(rootKey, tail);
-
-					} else if (value instanceof Map) {
-						// assume that every map in structure is Map<String, Object>
-						put((Map<String, Object>) value, tailPath, object);
-					} else {
-						throw new UnsupportedOperationException(
-								"The key \"" + rootKey + "\" is already assigned. Not a map");
-					}
-				}
-			}
-		}
+		TemplateData.put(base, keyPath, object);
 	}
 }
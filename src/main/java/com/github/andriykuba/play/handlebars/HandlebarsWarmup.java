@@ -0,0 +1,106 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.typesafe.config.Config;
+
+import play.Environment;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * Keep the caches warm across the restarts. The hot templates, routes and
+ * assets are saved to the snapshot file periodically and on the shutdown.
+ * On the start, the snapshot of the previous run is loaded in to the caches
+ * in the background. The start is not blocked, the first requests could miss
+ * the caches that are not warm yet.
+ *
+ * It is bound eagerly by the {@link HandlebarsModule} if the
+ * "handlebars.warmup.file" is configured.
+ */
+@Singleton
+public class HandlebarsWarmup {
+	private final static Logger LOGGER = LoggerFactory.getLogger(HandlebarsWarmup.class);
+
+	final static String FILE = "handlebars.warmup.file";
+	final static String INTERVAL_SECONDS = "handlebars.warmup.intervalSeconds";
+
+	private final HandlebarsApi handlebarsApi;
+	private final File file;
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * Start loading the snapshot and schedule the saving.
+	 *
+	 * @param handlebarsApi
+	 *            The engine with the caches.
+	 * @param config
+	 *            Play configuration.
+	 * @param environment
+	 *            Play environment, the relative file is resolved against the
+	 *            application root.
+	 * @param lifecycle
+	 *            Used to save the snapshot on the shutdown.
+	 */
+	@Inject
+	public HandlebarsWarmup(
+			final HandlebarsApi handlebarsApi,
+			final Config config,
+			final Environment environment,
+			final ApplicationLifecycle lifecycle) {
+		this.handlebarsApi = handlebarsApi;
+
+		final File configured = new File(config.getString(FILE));
+		this.file = configured.isAbsolute() ? configured : environment.getFile(configured.getPath());
+
+		final long interval = config.hasPath(INTERVAL_SECONDS) ? config.getLong(INTERVAL_SECONDS) : 300;
+
+		handlebarsApi.countCacheHits();
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "handlebars-warmup");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// Warm up in the background, the snapshot is saved after it.
+		scheduler.execute(this::load);
+
+		scheduler.scheduleWithFixedDelay(this::save, interval, interval, TimeUnit.SECONDS);
+
+		lifecycle.addStopHook(() -> {
+			scheduler.shutdownNow();
+			save();
+			return CompletableFuture.completedFuture(null);
+		});
+	}
+
+	private void load() {
+		try {
+			final CacheSnapshot snapshot = CacheSnapshot.read(file);
+			final int skipped = handlebarsApi.warmUp(snapshot);
+			LOGGER.info("Handlebars caches are warmed up from {}: {} templates, {} routes, {} assets, {} skipped",
+					file, snapshot.getTemplates().size(), snapshot.getRoutes().size(), snapshot.getAssets().size(), skipped);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Handlebars caches could not be warmed up from " + file, e);
+		}
+	}
+
+	private void save() {
+		try {
+			handlebarsApi.cacheSnapshot().write(file);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Handlebars cache snapshot could not be written to " + file, e);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe hit counter of the cache keys. The count of the keys is
+ * limited. When a new key comes to the full counter, all the counts are
+ * halved and the keys that are down to zero are dropped, so the old hits
+ * decay and the new hot keys are still counted.
+ */
+public final class HitCounter {
+
+	private final int maxKeys;
+
+	private final Map<String, LongAdder> hits = new ConcurrentHashMap<>();
+
+	/**
+	 * @param maxKeys
+	 *            The maximal count of the counted keys.
+	 */
+	public HitCounter(final int maxKeys) {
+		this.maxKeys = maxKeys;
+	}
+
+	/**
+	 * Count the hit of the key.
+	 *
+	 * @param key
+	 *            The cache key.
+	 */
+	public void hit(final String key) {
+		LongAdder counter = hits.get(key);
+		if (counter == null) {
+			if (hits.size() >= maxKeys) {
+				decay();
+			}
+			counter = hits.computeIfAbsent(key, k -> new LongAdder());
+		}
+		counter.increment();
+	}
+
+	/**
+	 * Halve the counts until there is a room for the new key. The hits that
+	 * come in between could be lost, the counts are estimates anyway.
+	 */
+	private synchronized void decay() {
+		while (hits.size() >= maxKeys) {
+			final Iterator<LongAdder> counters = hits.values().iterator();
+			while (counters.hasNext()) {
+				final LongAdder counter = counters.next();
+				final long half = counter.sumThenReset() / 2;
+				if (half == 0) {
+					counters.remove();
+				} else {
+					counter.add(half);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param limit
+	 *            The maximal count of the keys.
+	 * @return the most hit keys with their counts, the most hit first.
+	 */
+	public Map<String, Long> top(final int limit) {
+		final List<Map.Entry<String, Long>> counts = new ArrayList<>(hits.size());
+		for (Map.Entry<String, LongAdder> hit : hits.entrySet()) {
+			counts.add(new SimpleImmutableEntry<>(hit.getKey(), hit.getValue().sum()));
+		}
+		counts.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+
+		final Map<String, Long> top = new LinkedHashMap<>();
+		for (Map.Entry<String, Long> count : counts) {
+			if (top.size() >= limit) {
+				break;
+			}
+			top.put(count.getKey(), count.getValue());
+		}
+		return top;
+	}
+}
@@ -0,0 +1,71 @@
+package com.github.andriykuba.play.handlebars;
+
+import com.github.jknack.handlebars.EscapingStrategy;
+import com.github.jknack.handlebars.Handlebars;
+
+/**
+ * HTML escaping with the same entities as the default
+ * {@link EscapingStrategy#HBS4} of the engine.
+ *
+ * The value is scanned for the escapable characters first and is returned as
+ * is if there are none, that is the usual case for the URLs, names and
+ * numbers. Only the value that really needs the escaping is copied.
+ */
+public final class HtmlEscapingStrategy implements EscapingStrategy {
+
+	public final static HtmlEscapingStrategy INSTANCE = new HtmlEscapingStrategy();
+
+	/**
+	 * Entities by the character, the highest escapable character is "`".
+	 */
+	private final static String[] ENTITIES = new String['`' + 1];
+
+	static {
+		ENTITIES['<'] = "&lt;";
+		ENTITIES['>'] = "&gt;";
+		ENTITIES['"'] = "&quot;";
+		ENTITIES['\''] = "&#x27;";
+		ENTITIES['`'] = "&#x60;";
+		ENTITIES['&'] = "&amp;";
+		ENTITIES['='] = "&#x3D;";
+	}
+
+	private HtmlEscapingStrategy() {
+	}
+
+	@Override
+	public CharSequence escape(final CharSequence value) {
+		if (value instanceof Handlebars.SafeString) {
+			return ((Handlebars.SafeString) value).content;
+		}
+		if (value == null) {
+			return "";
+		}
+
+		final int length = value.length();
+		int start = 0;
+		while (start < length && entity(value.charAt(start)) == null) {
+			start++;
+		}
+		if (start == length) {
+			return value;
+		}
+
+		final StringBuilder escaped = new StringBuilder(length + 16);
+		escaped.append(value, 0, start);
+		for (int i = start; i < length; i++) {
+			final char c = value.charAt(i);
+			final String entity = entity(c);
+			if (entity == null) {
+				escaped.append(c);
+			} else {
+				escaped.append(entity);
+			}
+		}
+		return escaped.toString();
+	}
+
+	private static String entity(final char c) {
+		return c < ENTITIES.length ? ENTITIES[c] : null;
+	}
+}
@@ -0,0 +1,209 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+import com.github.jknack.handlebars.ValueResolver;
+import com.google.common.base.Suppliers;
+
+/**
+ * Resolver of the lazy values, the {@link #lazy(Supplier) lazy} suppliers and
+ * {@link java.util.concurrent.CompletionStage}.
+ *
+ * It wraps the other resolvers. The lazy value is unwrapped only when the
+ * template reads it: the supplier is called, the completion stage is waited
+ * for. The section that is not rendered costs nothing. The supplier is called
+ * once per render, however many times the template reads it. Other suppliers
+ * are not lazy values, they are resolved as any other object.
+ *
+ * The render thread is blocked until the completion stage is completed. Only
+ * {@link HandlebarsApi#renderAsync(String, Object, String) renderAsync} waits
+ * for the top level stages of the data map without blocking.
+ *
+ * If the {@link ScalaValueResolver} is one of the resolvers, it alone reads
+ * the Scala maps, sequences and products.
+ */
+public final class LazyValueResolver implements ValueResolver {
+
+	/**
+	 * The values of the lazy suppliers read by the render in progress on the
+	 * thread, null if there is no render.
+	 */
+	private final static ThreadLocal<Map<Lazy<?>, Object>> RENDER_VALUES = new ThreadLocal<>();
+
+	private final ValueResolver[] resolvers;
+
+	/**
+	 * @param resolvers
+	 *            Resolvers of the unwrapped values, the order is important.
+	 */
+	public LazyValueResolver(final ValueResolver... resolvers) {
+		this.resolvers = resolvers.clone();
+	}
+
+	/**
+	 * The supplier is called when the template reads the value, once per
+	 * render.
+	 *
+	 * @param supplier
+	 *            Supplier of the value.
+	 * @param <T>
+	 *            Type of the value.
+	 * @return The lazy value.
+	 */
+	public static <T> Lazy<T> lazy(final Supplier<T> supplier) {
+		return new Lazy<>(supplier);
+	}
+
+	/**
+	 * The supplier is called once per render. Use this method to call it only
+	 * once for all the renders, like for the value that is shared by them.
+	 *
+	 * @param supplier
+	 *            Supplier of the value.
+	 * @param <T>
+	 *            Type of the value.
+	 * @return The lazy value that calls the given supplier only once.
+	 */
+	public static <T> Lazy<T> memoize(final Supplier<T> supplier) {
+		return new Lazy<>(Suppliers.memoize(supplier::get)::get);
+	}
+
+	/**
+	 * Start remembering the lazy values of the render on the thread.
+	 *
+	 * @return the values of the outer render, to restore them with
+	 *         {@link #finishRender(Map)}.
+	 */
+	static Map<Lazy<?>, Object> startRender() {
+		final Map<Lazy<?>, Object> outer = RENDER_VALUES.get();
+		RENDER_VALUES.set(new IdentityHashMap<>());
+		return outer;
+	}
+
+	/**
+	 * Forget the lazy values of the finished render.
+	 *
+	 * @param outer
+	 *            The result of the {@link #startRender()}.
+	 */
+	static void finishRender(final Map<Lazy<?>, Object> outer) {
+		if (outer == null) {
+			RENDER_VALUES.remove();
+		} else {
+			RENDER_VALUES.set(outer);
+		}
+	}
+
+	/**
+	 * @param value
+	 *            Any value.
+	 * @return The value of the lazy supplier or the completion stage, the
+	 *         value itself otherwise.
+	 */
+	static Object unwrap(final Object value) {
+		if (value instanceof Lazy) {
+			return unwrap(((Lazy<?>) value).value());
+		}
+		if (value instanceof CompletionStage) {
+			return unwrap(((CompletionStage<?>) value).toCompletableFuture().join());
+		}
+		return value;
+	}
+
+	@Override
+	public Object resolve(final Object context, final String name) {
+		final Object target = unwrap(context);
+		for (ValueResolver resolver : resolvers) {
+			final Object value = resolver.resolve(target, name);
+			if (value != UNRESOLVED) {
+				return value(value);
+			}
+		}
+		return UNRESOLVED;
+	}
+
+	@Override
+	public Object resolve(final Object context) {
+		final Object target = unwrap(context);
+		for (ValueResolver resolver : resolvers) {
+			final Object value = resolver.resolve(target);
+			if (value != UNRESOLVED) {
+				return value(value);
+			}
+		}
+		return UNRESOLVED;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> propertySet(final Object context) {
+		final Object target = unwrap(context);
+		final Set<Map.Entry<String, Object>> properties = new LinkedHashSet<>();
+		for (ValueResolver resolver : resolvers) {
+			for (Map.Entry<String, Object> property : resolver.propertySet(target)) {
+				final Object value = property.getValue();
+				final Object resolved = value(value);
+				properties.add(resolved == value ? property : new SimpleImmutableEntry<>(property.getKey(), resolved));
+			}
+		}
+		return properties;
+	}
+
+	/**
+	 * The lazy value is unwrapped and resolved, like a Scala option that the
+	 * supplier returned.
+	 */
+	private Object value(final Object value) {
+		final Object unwrapped = unwrap(value);
+		if (unwrapped == value) {
+			return value;
+		}
+		for (ValueResolver resolver : resolvers) {
+			final Object resolved = resolver.resolve(unwrapped);
+			if (resolved != UNRESOLVED) {
+				return resolved;
+			}
+		}
+		return unwrapped;
+	}
+
+	/**
+	 * The value that is supplied when the template reads it.
+	 *
+	 * @param <T>
+	 *            Type of the value.
+	 */
+	public static final class Lazy<T> implements Supplier<T> {
+		private final Supplier<T> supplier;
+
+		private Lazy(final Supplier<T> supplier) {
+			this.supplier = supplier;
+		}
+
+		@Override
+		public T get() {
+			return supplier.get();
+		}
+
+		/**
+		 * @return the value, the supplier is called once per render.
+		 */
+		private Object value() {
+			final Map<Lazy<?>, Object> values = RENDER_VALUES.get();
+			if (values == null) {
+				return supplier.get();
+			}
+			if (values.containsKey(this)) {
+				return values.get(this);
+			}
+			final Object value = supplier.get();
+			values.put(this, value);
+			return value;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Moving estimate of the output size by the template, used to presize the
+ * output buffer of the next render.
+ *
+ * The estimates are kept by the template file name, not by the compiled
+ * template, so they survive the expiration of the templates cache.
+ */
+final class OutputSizeEstimates {
+
+	/**
+	 * The weight of the last render is 1 / 2^SMOOTHING_SHIFT.
+	 */
+	private final static int SMOOTHING_SHIFT = 2;
+
+	private final Cache<String, Estimate> estimates = CacheBuilder.newBuilder().maximumSize(1000).build();
+
+	/**
+	 * @param template
+	 *            The template file name, could be null.
+	 * @return the estimate of the template, null if the template has no name.
+	 */
+	Estimate get(final String template) {
+		if (template == null) {
+			return null;
+		}
+		try {
+			return estimates.get(template, Estimate::new);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * @return the estimated output sizes in chars by the template.
+	 */
+	Map<String, Integer> sizes() {
+		final Map<String, Integer> sizes = new TreeMap<>();
+		for (Map.Entry<String, Estimate> estimate : estimates.asMap().entrySet()) {
+			sizes.put(estimate.getKey(), estimate.getValue().size);
+		}
+		return sizes;
+	}
+
+	/**
+	 * The estimate of one template. It is updated without the locks, a lost
+	 * update of the concurrent renders does not matter.
+	 */
+	static final class Estimate {
+		private volatile int size;
+
+		/**
+		 * @return the buffer capacity for the next render, with a bit of
+		 *         headroom, 0 if nothing is rendered yet.
+		 */
+		int capacity() {
+			final int estimated = size;
+			return estimated + (estimated >> 3);
+		}
+
+		/**
+		 * @param length
+		 *            The output size of the render.
+		 */
+		void record(final int length) {
+			final int estimated = size;
+			size = (estimated == 0) ? length : estimated + ((length - estimated) >> SMOOTHING_SHIFT);
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import com.github.andriykuba.play.handlebars.RenderLimitExceededException.Limit;
+import com.github.jknack.handlebars.Context;
+
+/**
+ * Output of the render that enforces the render limits. The output size is
+ * checked on every write. The block helpers buffer their output before it
+ * reaches the guard, so the "each" helper checks the size of its buffer on
+ * every iteration as well. The partial depth and the render time are checked
+ * cooperatively, on the writes and on the "each" iterations, the clock is read
+ * once per 16 of them. A render that neither writes nor iterates, like a slow
+ * helper or a slow lookup, is not stopped.
+ *
+ * The guard is kept in the context data, the "each" helper counts its
+ * iterations and its output through it.
+ */
+public final class RenderGuard extends Writer {
+
+	/**
+	 * The name of the guard in the context data.
+	 */
+	public final static String DATA = "renderGuard";
+
+	/**
+	 * The clock is read once per this count of the operations.
+	 */
+	private final static int TIME_CHECK_INTERVAL = 16;
+
+	private final RenderLimits limits;
+	private final Writer out;
+
+	/**
+	 * The partials in progress, handlebars keeps them in the context data.
+	 */
+	private final List<?> invocationStack;
+
+	private final long deadline;
+
+	private long chars;
+	private long iterations;
+	private int operations;
+
+	RenderGuard(final RenderLimits limits, final Writer out, final Context context) {
+		this.limits = limits;
+		this.out = out;
+		this.invocationStack = context.data(Context.INVOCATION_STACK);
+		this.deadline = (limits.maxRenderNanos > 0) ? System.nanoTime() + limits.maxRenderNanos : 0;
+	}
+
+	/**
+	 * Count one iteration of the "each" helper.
+	 */
+	public void iteration() {
+		if (limits.maxEachIterations > 0 && ++iterations > limits.maxEachIterations) {
+			throw limits.exceeded(Limit.EACH_ITERATIONS);
+		}
+		check();
+	}
+
+	/**
+	 * @return the count of the chars written to the output so far.
+	 */
+	public long position() {
+		return chars;
+	}
+
+	/**
+	 * Check the output that a block helper keeps in its buffer. It is not
+	 * counted, it is counted when the buffer is written to the output.
+	 *
+	 * @param position
+	 *            The {@link #position()} when the block started.
+	 * @param length
+	 *            The length of the block output so far.
+	 */
+	public void buffered(final long position, final long length) {
+		if (limits.maxOutputChars > 0 && position + length > limits.maxOutputChars) {
+			throw limits.exceeded(Limit.OUTPUT_CHARS);
+		}
+	}
+
+	/**
+	 * @return the time left for the render, {@link Long#MAX_VALUE} if the time
+	 *         is not limited.
+	 */
+	public long remainingNanos() {
+		return (deadline == 0) ? Long.MAX_VALUE : deadline - System.nanoTime();
+	}
+
+	/**
+	 * Stop the render if it is out of time, without waiting for the next
+	 * periodic check.
+	 */
+	public void checkDeadline() {
+		if (deadline != 0 && System.nanoTime() - deadline > 0) {
+			throw limits.exceeded(Limit.RENDER_MILLIS);
+		}
+	}
+
+	private void check() {
+		if (limits.maxPartialDepth > 0 && invocationStack != null && invocationStack.size() > limits.maxPartialDepth) {
+			throw limits.exceeded(Limit.PARTIAL_DEPTH);
+		}
+		if (deadline != 0 && ++operations % TIME_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+			throw limits.exceeded(Limit.RENDER_MILLIS);
+		}
+	}
+
+	private void count(final int length) {
+		chars += length;
+		if (limits.maxOutputChars > 0 && chars > limits.maxOutputChars) {
+			throw limits.exceeded(Limit.OUTPUT_CHARS);
+		}
+		check();
+	}
+
+	@Override
+	public void write(final int c) throws IOException {
+		count(1);
+		out.write(c);
+	}
+
+	@Override
+	public void write(final char[] buffer, final int offset, final int length) throws IOException {
+		count(length);
+		out.write(buffer, offset, length);
+	}
+
+	@Override
+	public void write(final String string, final int offset, final int length) throws IOException {
+		count(length);
+		out.write(string, offset, length);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,46 @@
+package com.github.andriykuba.play.handlebars;
+
+import com.github.jknack.handlebars.HandlebarsException;
+
+/**
+ * The render is stopped because it exceeded one of the "handlebars.limits".
+ *
+ * It extends the {@link HandlebarsException}, so the engine does not wrap it
+ * and the render methods throw it as is.
+ */
+public class RenderLimitExceededException extends HandlebarsException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The render limits.
+	 */
+	public enum Limit {
+		OUTPUT_CHARS,
+		EACH_ITERATIONS,
+		PARTIAL_DEPTH,
+		RENDER_MILLIS
+	}
+
+	private final Limit limit;
+	private final long maximum;
+
+	RenderLimitExceededException(final Limit limit, final long maximum) {
+		super("Render limit " + limit + " = " + maximum + " is exceeded", null);
+		this.limit = limit;
+		this.maximum = maximum;
+	}
+
+	/**
+	 * @return the exceeded limit.
+	 */
+	public Limit getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return the configured maximum of the limit.
+	 */
+	public long getMaximum() {
+		return maximum;
+	}
+}
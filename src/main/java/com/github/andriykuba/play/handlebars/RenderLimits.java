@@ -0,0 +1,98 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.andriykuba.play.handlebars.RenderLimitExceededException.Limit;
+import com.github.jknack.handlebars.Context;
+
+/**
+ * The per render limits and the counters of the stopped renders. Zero means
+ * there is no limit.
+ */
+final class RenderLimits {
+	final long maxOutputChars;
+	final long maxEachIterations;
+	final int maxPartialDepth;
+	final long maxRenderNanos;
+
+	private final Map<Limit, LongAdder> exceeded = new EnumMap<>(Limit.class);
+
+	RenderLimits(
+			final long maxOutputChars,
+			final long maxEachIterations,
+			final int maxPartialDepth,
+			final long maxRenderMillis) {
+		this.maxOutputChars = maxOutputChars;
+		this.maxEachIterations = maxEachIterations;
+		this.maxPartialDepth = maxPartialDepth;
+		this.maxRenderNanos = TimeUnit.MILLISECONDS.toNanos(maxRenderMillis);
+
+		for (Limit limit : Limit.values()) {
+			exceeded.put(limit, new LongAdder());
+		}
+	}
+
+	/**
+	 * @return true if there is at least one limit.
+	 */
+	boolean isEnabled() {
+		return maxOutputChars > 0 || maxEachIterations > 0 || maxPartialDepth > 0 || maxRenderNanos > 0;
+	}
+
+	/**
+	 * Guard the output of the render and register the guard in the context.
+	 *
+	 * @param out
+	 *            The output of the render.
+	 * @param context
+	 *            The context of the render.
+	 * @return the guarded output.
+	 */
+	RenderGuard guard(final Writer out, final Context context) {
+		final RenderGuard guard = new RenderGuard(this, out, context);
+		context.data(RenderGuard.DATA, guard);
+		return guard;
+	}
+
+	/**
+	 * Count the stopped render.
+	 *
+	 * @param limit
+	 *            The exceeded limit.
+	 * @return the exception to throw.
+	 */
+	RenderLimitExceededException exceeded(final Limit limit) {
+		exceeded.get(limit).increment();
+
+		final long maximum;
+		switch (limit) {
+		case OUTPUT_CHARS:
+			maximum = maxOutputChars;
+			break;
+		case EACH_ITERATIONS:
+			maximum = maxEachIterations;
+			break;
+		case PARTIAL_DEPTH:
+			maximum = maxPartialDepth;
+			break;
+		default:
+			maximum = TimeUnit.NANOSECONDS.toMillis(maxRenderNanos);
+		}
+		return new RenderLimitExceededException(limit, maximum);
+	}
+
+	/**
+	 * @return the count of the stopped renders by the limit.
+	 */
+	Map<Limit, Long> exceeded() {
+		final Map<Limit, Long> counts = new EnumMap<>(Limit.class);
+		for (Map.Entry<Limit, LongAdder> count : exceeded.entrySet()) {
+			counts.put(count.getKey(), count.getValue().sum());
+		}
+		return counts;
+	}
+}
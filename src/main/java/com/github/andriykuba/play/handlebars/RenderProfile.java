@@ -0,0 +1,142 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time breakdown of one sampled render: the whole render, every partial and
+ * every helper. Times are inclusive, the time of the block helper or the
+ * partial contains the time of everything inside of it.
+ *
+ * The profile is filled by one render thread, it must not be modified by the
+ * listener.
+ */
+public final class RenderProfile {
+
+	private final String template;
+	private final long start;
+	private long nanos;
+
+	private final Map<String, Timing> partials = new HashMap<>();
+	private final Map<String, Timing> helpers = new HashMap<>();
+
+	/**
+	 * Nesting of the templates, the rendered template is the first level.
+	 */
+	int depth;
+
+	RenderProfile(final String template) {
+		this.template = template;
+		this.start = System.nanoTime();
+	}
+
+	void finish() {
+		nanos = System.nanoTime() - start;
+	}
+
+	void partial(final String name, final long time) {
+		timing(partials, name).add(time);
+	}
+
+	void helper(final String name, final long time) {
+		timing(helpers, name).add(time);
+	}
+
+	private static Timing timing(final Map<String, Timing> timings, final String name) {
+		Timing timing = timings.get(name);
+		if (timing == null) {
+			timing = new Timing();
+			timings.put(name, timing);
+		}
+		return timing;
+	}
+
+	/**
+	 * @return the name of the rendered template.
+	 */
+	public String getTemplate() {
+		return template;
+	}
+
+	/**
+	 * @return the time of the whole render in nanoseconds.
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * @return the partials by the file name.
+	 */
+	public Map<String, Timing> getPartials() {
+		return Collections.unmodifiableMap(partials);
+	}
+
+	/**
+	 * @return the helpers by the name.
+	 */
+	public Map<String, Timing> getHelpers() {
+		return Collections.unmodifiableMap(helpers);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(256)
+				.append("template=").append(template)
+				.append(", time=").append(millis(nanos)).append("ms");
+		append(builder, "partials", partials);
+		append(builder, "helpers", helpers);
+		return builder.toString();
+	}
+
+	private static void append(final StringBuilder builder, final String title, final Map<String, Timing> timings) {
+		builder.append(", ").append(title).append("=[");
+		boolean first = true;
+		for (Map.Entry<String, Timing> timing : timings.entrySet()) {
+			if (!first) {
+				builder.append(", ");
+			}
+			first = false;
+			builder.append(timing.getKey()).append(' ').append(timing.getValue());
+		}
+		builder.append(']');
+	}
+
+	private static long millis(final long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	/**
+	 * Count of the calls and their cumulative time.
+	 */
+	public static final class Timing {
+		private int count;
+		private long nanos;
+
+		void add(final long time) {
+			count++;
+			nanos += time;
+		}
+
+		/**
+		 * @return the count of the calls.
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * @return the cumulative time of the calls in nanoseconds.
+		 */
+		public long getNanos() {
+			return nanos;
+		}
+
+		@Override
+		public String toString() {
+			return count + "x " + millis(nanos) + "ms";
+		}
+	}
+}
@@ -0,0 +1,357 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.jknack.handlebars.Context;
+import com.github.jknack.handlebars.Decorator;
+import com.github.jknack.handlebars.Helper;
+import com.github.jknack.handlebars.HelperRegistry;
+import com.github.jknack.handlebars.Options;
+import com.github.jknack.handlebars.Parser;
+import com.github.jknack.handlebars.TagType;
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.TypeSafeTemplate;
+import com.github.jknack.handlebars.cache.TemplateCache;
+import com.github.jknack.handlebars.io.TemplateSource;
+
+/**
+ * Sampled profiling of the renders.
+ *
+ * Templates and helpers are wrapped only if the profiling is enabled. The
+ * wrapper of the not sampled render does one lookup in the context data and
+ * calls the original, the timers are started only for the sampled renders.
+ */
+final class RenderProfiler {
+
+	private final static Logger LOGGER = LoggerFactory.getLogger(RenderProfiler.class);
+
+	/**
+	 * The profile is kept in the context data, it is shared with the partial
+	 * and the block contexts.
+	 */
+	final static String PROFILE_DATA = "renderProfile";
+
+	private final double sampleRate;
+	private final long thresholdNanos;
+
+	private volatile Consumer<? super RenderProfile> listener = profile -> LOGGER.warn("Slow render: {}", profile);
+
+	RenderProfiler(final double sampleRate, final long thresholdMillis) {
+		this.sampleRate = sampleRate;
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+	}
+
+	void setListener(final Consumer<? super RenderProfile> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Decide if the render is profiled.
+	 *
+	 * @param template
+	 *            Name of the rendered template.
+	 * @param context
+	 *            Context of the render.
+	 * @return the profile or null if the render is not sampled.
+	 */
+	RenderProfile sample(final String template, final Context context) {
+		if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+			return null;
+		}
+		final RenderProfile profile = new RenderProfile(template);
+		context.data(PROFILE_DATA, profile);
+		return profile;
+	}
+
+	/**
+	 * Publish the profile if the render was too slow.
+	 *
+	 * @param profile
+	 *            The finished render.
+	 */
+	void finish(final RenderProfile profile) {
+		profile.finish();
+		if (profile.getNanos() >= thresholdNanos) {
+			listener.accept(profile);
+		}
+	}
+
+	/**
+	 * Cache that wraps the templates, the partials are compiled through it as
+	 * well.
+	 */
+	static final class ProfilingTemplateCache implements TemplateCache {
+		private final TemplateCache cache;
+
+		ProfilingTemplateCache(final TemplateCache cache) {
+			this.cache = cache;
+		}
+
+		@Override
+		public void clear() {
+			cache.clear();
+		}
+
+		@Override
+		public void evict(final TemplateSource source) {
+			cache.evict(source);
+		}
+
+		@Override
+		public Template get(final TemplateSource source, final Parser parser) throws IOException {
+			return new ProfiledTemplate(cache.get(source, parser));
+		}
+
+		@Override
+		public TemplateCache setReload(final boolean reload) {
+			cache.setReload(reload);
+			return this;
+		}
+	}
+
+	/**
+	 * Template that records its time as the partial time. The first level
+	 * template is the render itself and it is not recorded.
+	 */
+	static final class ProfiledTemplate implements Template {
+		private final Template template;
+
+		ProfiledTemplate(final Template template) {
+			this.template = template;
+		}
+
+		@Override
+		public void apply(final Context context, final Writer writer) throws IOException {
+			final RenderProfile profile = context.data(PROFILE_DATA);
+			if (profile == null) {
+				template.apply(context, writer);
+				return;
+			}
+
+			final long start = System.nanoTime();
+			profile.depth++;
+			try {
+				template.apply(context, writer);
+			} finally {
+				if (--profile.depth > 0) {
+					profile.partial(template.filename(), System.nanoTime() - start);
+				}
+			}
+		}
+
+		@Override
+		public String apply(final Context context) throws IOException {
+			final RenderProfile profile = context.data(PROFILE_DATA);
+			if (profile == null) {
+				return template.apply(context);
+			}
+
+			final long start = System.nanoTime();
+			profile.depth++;
+			try {
+				return template.apply(context);
+			} finally {
+				if (--profile.depth > 0) {
+					profile.partial(template.filename(), System.nanoTime() - start);
+				}
+			}
+		}
+
+		@Override
+		public void apply(final Object context, final Writer writer) throws IOException {
+			template.apply(context, writer);
+		}
+
+		@Override
+		public String apply(final Object context) throws IOException {
+			return template.apply(context);
+		}
+
+		@Override
+		public String text() {
+			return template.text();
+		}
+
+		@Override
+		public String toJavaScript() {
+			return template.toJavaScript();
+		}
+
+		@Override
+		public <T, S extends TypeSafeTemplate<T>> S as(final Class<S> type) {
+			return template.as(type);
+		}
+
+		@Override
+		public <T> TypeSafeTemplate<T> as() {
+			return template.as();
+		}
+
+		@Override
+		public List<String> collect(final TagType... tagType) {
+			return template.collect(tagType);
+		}
+
+		@Override
+		public List<String> collectReferenceParameters() {
+			return template.collectReferenceParameters();
+		}
+
+		@Override
+		public String filename() {
+			return template.filename();
+		}
+
+		@Override
+		public int[] position() {
+			return template.position();
+		}
+
+		@Override
+		public String toString() {
+			return template.toString();
+		}
+	}
+
+	/**
+	 * Registry that wraps the helpers when the template is compiled.
+	 */
+	static final class ProfilingHelperRegistry implements HelperRegistry {
+		private final HelperRegistry registry;
+
+		private final Map<String, ProfiledHelper> profiled = new ConcurrentHashMap<>();
+
+		ProfilingHelperRegistry(final HelperRegistry registry) {
+			this.registry = registry;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <C> Helper<C> helper(final String name) {
+			final Helper<Object> helper = registry.helper(name);
+			if (helper == null) {
+				return null;
+			}
+
+			ProfiledHelper wrapper = profiled.get(name);
+			if (wrapper == null || wrapper.helper != helper) {
+				wrapper = new ProfiledHelper(name, helper);
+				profiled.put(name, wrapper);
+			}
+			return (Helper<C>) wrapper;
+		}
+
+		@Override
+		public Set<Map.Entry<String, Helper<?>>> helpers() {
+			return registry.helpers();
+		}
+
+		@Override
+		public <H> HelperRegistry registerHelper(final String name, final Helper<H> helper) {
+			registry.registerHelper(name, helper);
+			return this;
+		}
+
+		@Override
+		public <H> HelperRegistry registerHelperMissing(final Helper<H> helper) {
+			registry.registerHelperMissing(helper);
+			return this;
+		}
+
+		@Override
+		public HelperRegistry registerHelpers(final Object helperSource) {
+			registry.registerHelpers(helperSource);
+			return this;
+		}
+
+		@Override
+		public HelperRegistry registerHelpers(final Class<?> helperSource) {
+			registry.registerHelpers(helperSource);
+			return this;
+		}
+
+		@Override
+		public HelperRegistry registerHelpers(final URI location) throws Exception {
+			registry.registerHelpers(location);
+			return this;
+		}
+
+		@Override
+		public HelperRegistry registerHelpers(final File input) throws Exception {
+			registry.registerHelpers(input);
+			return this;
+		}
+
+		@Override
+		public HelperRegistry registerHelpers(final String filename, final Reader source) throws Exception {
+			registry.registerHelpers(filename, source);
+			return this;
+		}
+
+		@Override
+		public HelperRegistry registerHelpers(final String filename, final InputStream source) throws Exception {
+			registry.registerHelpers(filename, source);
+			return this;
+		}
+
+		@Override
+		public HelperRegistry registerHelpers(final String filename, final String source) throws Exception {
+			registry.registerHelpers(filename, source);
+			return this;
+		}
+
+		@Override
+		public Decorator decorator(final String name) {
+			return registry.decorator(name);
+		}
+
+		@Override
+		public HelperRegistry registerDecorator(final String name, final Decorator decorator) {
+			registry.registerDecorator(name, decorator);
+			return this;
+		}
+	}
+
+	/**
+	 * Helper that records the count and the time of its calls.
+	 */
+	static final class ProfiledHelper implements Helper<Object> {
+		private final String name;
+		private final Helper<Object> helper;
+
+		ProfiledHelper(final String name, final Helper<Object> helper) {
+			this.name = name;
+			this.helper = helper;
+		}
+
+		@Override
+		public Object apply(final Object context, final Options options) throws IOException {
+			final RenderProfile profile = options.context.data(PROFILE_DATA);
+			if (profile == null) {
+				return helper.apply(context, options);
+			}
+
+			final long start = System.nanoTime();
+			try {
+				return helper.apply(context, options);
+			} finally {
+				profile.helper(name, System.nanoTime() - start);
+			}
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.github.jknack.handlebars.Context;
+import com.github.jknack.handlebars.JsonNodeValueResolver;
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.ValueResolver;
+import com.github.jknack.handlebars.context.FieldValueResolver;
+import com.github.jknack.handlebars.context.MapValueResolver;
+
+/**
+ * The render core that every render of the {@link HandlebarsApi} goes
+ * through: the context of the data layers, the sampled profiling, the render
+ * limits and the presized output buffer.
+ */
+final class Renderer {
+
+	/**
+	 * Handlebars keeps the "@root" variable in the context data under this key.
+	 */
+	final static String ROOT_DATA = "root";
+
+	/**
+	 * Value resolvers, the order is important. Lazy values are unwrapped
+	 * before the other resolvers see them, the Scala data is read only by
+	 * the {@link ScalaValueResolver}.
+	 */
+	private final static ValueResolver[] RESOLVERS = {
+			new LazyValueResolver(
+					ScalaValueResolver.chain(
+							ScalaJsonValueResolver.INSTANCE,
+							JsonNodeValueResolver.INSTANCE,
+							MapValueResolver.INSTANCE,
+							FieldValueResolver.INSTANCE))};
+
+	/**
+	 * Sampled profiling of the renders. Null if it is disabled.
+	 */
+	private final RenderProfiler profiler;
+
+	/**
+	 * Per render limits, null if there are no limits.
+	 */
+	private final RenderLimits limits;
+
+	/**
+	 * Output sizes of the templates, for the presized output buffers.
+	 */
+	private final OutputSizeEstimates outputSizes = new OutputSizeEstimates();
+
+	/**
+	 * Site-wide data, the root layer of every render. Null if there is no one.
+	 */
+	private volatile GlobalContext global;
+
+	/**
+	 * @param profiler
+	 *            Sampled profiling, null if it is disabled.
+	 * @param limits
+	 *            Per render limits, null if there are no limits.
+	 */
+	Renderer(final RenderProfiler profiler, final RenderLimits limits) {
+		this.profiler = profiler;
+		this.limits = limits;
+	}
+
+	/**
+	 * The context of the data is built here, once, not on every render.
+	 *
+	 * @param data
+	 *            The site-wide data, null to remove.
+	 */
+	void setGlobalData(final Object data) {
+		this.global = (data == null) ? null : GlobalContext.of(data, RESOLVERS);
+	}
+
+	RenderProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * @return Count of the stopped renders by the limit, empty if there are
+	 *         no limits.
+	 */
+	Map<RenderLimitExceededException.Limit, Long> getExceededLimits() {
+		return limits == null ? Collections.emptyMap() : limits.exceeded();
+	}
+
+	/**
+	 * @return The estimated output sizes in chars by the template.
+	 */
+	Map<String, Integer> getOutputSizeEstimates() {
+		return outputSizes.sizes();
+	}
+
+	/**
+	 * Build the render context. The global data is the root context, the last
+	 * layer is its child, every previous layer is a child of the next one and
+	 * the data is the child of the first layer. Nothing is copied, the
+	 * context of the global data is reused.
+	 *
+	 * @param data
+	 *            Data to fill the template.
+	 * @param layers
+	 *            Additional data, could be empty.
+	 * @param languageCode
+	 *            This language would be used within message helper
+	 * @return The context of the data.
+	 */
+	Context newContext(final Object data, final List<?> layers, final String languageCode) {
+		final GlobalContext global = this.global;
+		Context parent = null;
+		for (int i = layers.size() - 1; i >= 0; i--) {
+			if (parent != null) {
+				parent = Context.newContext(parent, layers.get(i));
+			} else if (global != null) {
+				parent = global.newRender(layers.get(i));
+			} else {
+				parent = Context.newBuilder(layers.get(i)).resolver(RESOLVERS).build();
+			}
+		}
+
+		if (parent == null) {
+			if (global == null) {
+				return Context.newBuilder(data).combine(HandlebarsApi.LANGUAGE_PROPERTY, languageCode).resolver(RESOLVERS).build();
+			}
+			return global.newRender(data).combine(HandlebarsApi.LANGUAGE_PROPERTY, languageCode);
+		}
+
+		final Context context = Context.newBuilder(parent, data).combine(HandlebarsApi.LANGUAGE_PROPERTY, languageCode).build();
+		// The "@root" must be the data, not the deepest layer.
+		context.data(ROOT_DATA, data);
+		return context;
+	}
+
+	/**
+	 * Render the template to the output, profiled and guarded by the limits.
+	 * The lazy values are supplied once per render.
+	 *
+	 * @param template
+	 *            The template.
+	 * @param context
+	 *            The context of the render.
+	 * @param out
+	 *            The output.
+	 * @throws IOException
+	 *             If the output could not be written.
+	 */
+	void apply(final Template template, final Context context, final Writer out) throws IOException {
+		final RenderProfile profile = (profiler == null) ? null : profiler.sample(template.filename(), context);
+		final Map<LazyValueResolver.Lazy<?>, Object> outer = LazyValueResolver.startRender();
+		try {
+			template.apply(context, (limits == null) ? out : limits.guard(out, context));
+		} finally {
+			LazyValueResolver.finishRender(outer);
+			if (profile != null) {
+				profiler.finish(profile);
+			}
+		}
+	}
+
+	/**
+	 * Render the template to the string. The buffer is presized to the output
+	 * size estimate of the template.
+	 *
+	 * @param template
+	 *            The template.
+	 * @param context
+	 *            The context of the render.
+	 * @param reused
+	 *            The empty output buffer to reuse, null for a new one.
+	 * @return The output.
+	 * @throws IOException
+	 *             Never, the buffer is in memory.
+	 */
+	String render(final Template template, final Context context, final StringBuilderWriter reused) throws IOException {
+		final OutputSizeEstimates.Estimate estimate = outputSizes.get(template.filename());
+		final int capacity = (estimate == null) ? 0 : estimate.capacity();
+
+		final StringBuilderWriter buffer;
+		if (reused == null) {
+			buffer = new StringBuilderWriter(capacity);
+		} else {
+			buffer = reused;
+			buffer.ensureCapacity(capacity);
+		}
+
+		apply(template, context, buffer);
+		if (estimate != null) {
+			estimate.record(buffer.length());
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * The limit exceptions are thrown as is, the checked exceptions are
+	 * converted to unchecked.
+	 *
+	 * @param e
+	 *            Failure of the render.
+	 * @return The exception to throw.
+	 */
+	static RuntimeException failure(final Exception e) {
+		if (e instanceof RenderLimitExceededException) {
+			return (RenderLimitExceededException) e;
+		}
+		return new RuntimeException(e);
+	}
+}
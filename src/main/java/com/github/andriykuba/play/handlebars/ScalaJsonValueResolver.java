@@ -1,7 +1,7 @@
 package com.github.andriykuba.play.handlebars;
 
+import java.util.AbstractList;
 import java.util.AbstractMap;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -156,13 +156,22 @@ public enum ScalaJsonValueResolver implements ValueResolver{
 	    };
 	 }
 	 
+	 /**
+	  * Read only view of the array, elements are resolved on access.
+	  */
 	 private List<Object> toJavaList(final JsArray array){
-		 final scala.collection.Seq<JsValue> seq = array.value();
-		 final List<JsValue> converted = scala.collection.JavaConversions.seqAsJavaList(seq);
-		 final List<Object> result = new ArrayList<>();
-		 for(JsValue val:converted){
-			 result.add(resolve(val));
-		 }
-		 return result;
+		 final scala.collection.IndexedSeq<JsValue> seq = array.value();
+		 return new AbstractList<Object>() {
+
+			@Override
+			public Object get(final int index) {
+				return resolve(seq.apply(index));
+			}
+
+			@Override
+			public int size() {
+				return seq.size();
+			}
+		 };
 	 }
 }
@@ -0,0 +1,393 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.AbstractList;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.AbstractSequentialList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import com.github.jknack.handlebars.ValueResolver;
+
+import play.api.libs.json.JsValue;
+
+/**
+ * Resolver of the plain Scala data, so the view model does not need the
+ * conversion to the Play JSON.
+ *
+ * <ul>
+ * <li>{@code scala.Product}, like a case class or a tuple: the fields are
+ * read through their accessors, the accessors are looked up once per
+ * class.</li>
+ * <li>{@code scala.collection.Seq}: a read only {@link List} view, the
+ * elements are converted on access, nothing is copied. The linear sequence,
+ * like {@code scala.List}, is only iterated.</li>
+ * <li>{@code scala.collection.Map}: the values are read by the key.</li>
+ * <li>{@code scala.Option}: unwrapped to the value or null.</li>
+ * </ul>
+ *
+ * The Play JSON values are products as well, they are left to the
+ * {@link ScalaJsonValueResolver}.
+ *
+ * The options and sequences could be the values of any data, so they are
+ * converted by the {@link #chain(ValueResolver...) chain} of the resolvers,
+ * not by the resolvers themselves.
+ */
+public enum ScalaValueResolver implements ValueResolver {
+
+	INSTANCE;
+
+	/**
+	 * Accessors of the product fields by the field name, in the declaration
+	 * order.
+	 */
+	private final static ClassValue<Map<String, Method>> ACCESSORS = new ClassValue<Map<String, Method>>() {
+		@Override
+		protected Map<String, Method> computeValue(final Class<?> type) {
+			return accessors(type);
+		}
+	};
+
+	/**
+	 * @param context
+	 *            Any value.
+	 * @return true if the value is read only by this resolver, the other
+	 *         resolvers would see the implementation fields of the Scala
+	 *         classes.
+	 */
+	private static boolean handles(final Object context) {
+		final Object target = unwrap(context);
+		return target instanceof scala.collection.Map || target instanceof scala.collection.Seq
+				|| (target instanceof scala.Product && !(target instanceof JsValue));
+	}
+
+	/**
+	 * @param resolvers
+	 *            Resolvers of the other data, the order is important.
+	 * @return The resolver of the Scala data and the other data, every
+	 *         resolved Scala option and sequence is converted.
+	 */
+	public static ValueResolver chain(final ValueResolver... resolvers) {
+		return new Chain(resolvers);
+	}
+
+	@Override
+	public Object resolve(final Object context, final String name) {
+		final Object target = unwrap(context);
+
+		if (target instanceof scala.collection.Map) {
+			@SuppressWarnings("unchecked")
+			final scala.Option<Object> value = ((scala.collection.Map<Object, Object>) target).get(name);
+			return value.isDefined() ? value.get() : UNRESOLVED;
+		}
+
+		if (!handles(target) || target instanceof scala.collection.Seq) {
+			return UNRESOLVED;
+		}
+
+		final Method accessor = ACCESSORS.get(target.getClass()).get(name);
+		if (accessor == null) {
+			return UNRESOLVED;
+		}
+		return invoke(accessor, target);
+	}
+
+	@Override
+	public Object resolve(final Object context) {
+		return UNRESOLVED;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> propertySet(final Object context) {
+		final Object target = unwrap(context);
+
+		if (target instanceof scala.collection.Map) {
+			final Set<Map.Entry<String, Object>> entries = new LinkedHashSet<>();
+			final scala.collection.Iterator<?> iterator = ((scala.collection.Map<?, ?>) target).iterator();
+			while (iterator.hasNext()) {
+				final scala.Tuple2<?, ?> entry = (scala.Tuple2<?, ?>) iterator.next();
+				entries.add(new SimpleImmutableEntry<>(String.valueOf(entry._1()), entry._2()));
+			}
+			return entries;
+		}
+
+		if (target instanceof scala.collection.Seq) {
+			final Set<Map.Entry<String, Object>> entries = new LinkedHashSet<>();
+			final scala.collection.Iterator<?> iterator = ((scala.collection.Seq<?>) target).iterator();
+			for (int i = 0; iterator.hasNext(); i++) {
+				entries.add(new SimpleImmutableEntry<>(Integer.toString(i), iterator.next()));
+			}
+			return entries;
+		}
+
+		if (handles(target)) {
+			final Set<Map.Entry<String, Object>> entries = new LinkedHashSet<>();
+			for (Map.Entry<String, Method> accessor : ACCESSORS.get(target.getClass()).entrySet()) {
+				entries.add(new SimpleImmutableEntry<>(accessor.getKey(), invoke(accessor.getValue(), target)));
+			}
+			return entries;
+		}
+
+		return Collections.emptySet();
+	}
+
+	/**
+	 * @return the value of the option or null, the value itself if it is not
+	 *         an option.
+	 */
+	private static Object unwrap(final Object value) {
+		if (value instanceof scala.Option) {
+			final scala.Option<?> option = (scala.Option<?>) value;
+			return option.isDefined() ? option.get() : null;
+		}
+		return value;
+	}
+
+	/**
+	 * The option is unwrapped, the sequence is viewed as a list.
+	 */
+	private static Object convert(final Object value) {
+		if (value instanceof scala.Option) {
+			return convert(unwrap(value));
+		}
+		if (value instanceof scala.collection.Seq) {
+			return toJavaList((scala.collection.Seq<?>) value);
+		}
+		return value;
+	}
+
+	/**
+	 * Read only view of the sequence. The indexed sequence is read by the
+	 * index, the linear one only by the iterator.
+	 */
+	private static List<Object> toJavaList(final scala.collection.Seq<?> seq) {
+		if (seq instanceof scala.collection.IndexedSeq) {
+			return new IndexedSeqList(seq);
+		}
+		return new LinearSeqList(seq);
+	}
+
+	private static final class IndexedSeqList extends AbstractList<Object> implements RandomAccess {
+		private final scala.collection.Seq<?> seq;
+
+		IndexedSeqList(final scala.collection.Seq<?> seq) {
+			this.seq = seq;
+		}
+
+		@Override
+		public Object get(final int index) {
+			return convert(seq.apply(index));
+		}
+
+		@Override
+		public int size() {
+			return seq.size();
+		}
+	}
+
+	/**
+	 * All the list operations go through the forward iterator, the element by
+	 * the index is reached in one pass.
+	 */
+	private static final class LinearSeqList extends AbstractSequentialList<Object> {
+		private final scala.collection.Seq<?> seq;
+
+		LinearSeqList(final scala.collection.Seq<?> seq) {
+			this.seq = seq;
+		}
+
+		@Override
+		public ListIterator<Object> listIterator(final int index) {
+			return new SeqIterator(seq.iterator().drop(index), index);
+		}
+
+		@Override
+		public int size() {
+			return seq.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return seq.isEmpty();
+		}
+	}
+
+	/**
+	 * Forward only iterator of the sequence, the elements are converted.
+	 */
+	private static final class SeqIterator implements ListIterator<Object> {
+		private final scala.collection.Iterator<?> iterator;
+		private int index;
+
+		SeqIterator(final scala.collection.Iterator<?> iterator, final int index) {
+			this.iterator = iterator;
+			this.index = index;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		@Override
+		public Object next() {
+			index++;
+			return convert(iterator.next());
+		}
+
+		@Override
+		public int nextIndex() {
+			return index;
+		}
+
+		@Override
+		public int previousIndex() {
+			return index - 1;
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			throw new UnsupportedOperationException("The sequence is iterated forward only");
+		}
+
+		@Override
+		public Object previous() {
+			throw new UnsupportedOperationException("The sequence is iterated forward only");
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void set(final Object element) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void add(final Object element) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * The Scala data is read only by the {@link ScalaValueResolver}, the
+	 * other resolvers would see the implementation fields of the Scala
+	 * classes. The options and sequences are converted here, whichever
+	 * resolver found them.
+	 */
+	private static final class Chain implements ValueResolver {
+		private final ValueResolver[] resolvers;
+
+		Chain(final ValueResolver[] resolvers) {
+			this.resolvers = resolvers.clone();
+		}
+
+		@Override
+		public Object resolve(final Object context, final String name) {
+			if (handles(context)) {
+				return convert(INSTANCE.resolve(context, name));
+			}
+			for (ValueResolver resolver : resolvers) {
+				final Object value = resolver.resolve(context, name);
+				if (value != UNRESOLVED) {
+					return convert(value);
+				}
+			}
+			return UNRESOLVED;
+		}
+
+		@Override
+		public Object resolve(final Object context) {
+			if (context instanceof scala.Option || context instanceof scala.collection.Seq) {
+				return convert(context);
+			}
+			for (ValueResolver resolver : resolvers) {
+				final Object value = resolver.resolve(context);
+				if (value != UNRESOLVED) {
+					return convert(value);
+				}
+			}
+			return UNRESOLVED;
+		}
+
+		@Override
+		public Set<Map.Entry<String, Object>> propertySet(final Object context) {
+			if (handles(context)) {
+				return converted(INSTANCE.propertySet(context));
+			}
+			final Set<Map.Entry<String, Object>> properties = new LinkedHashSet<>();
+			for (ValueResolver resolver : resolvers) {
+				properties.addAll(converted(resolver.propertySet(context)));
+			}
+			return properties;
+		}
+
+		private static Set<Map.Entry<String, Object>> converted(final Set<Map.Entry<String, Object>> properties) {
+			final Set<Map.Entry<String, Object>> result = new LinkedHashSet<>();
+			for (Map.Entry<String, Object> property : properties) {
+				final Object value = property.getValue();
+				final Object converted = convert(value);
+				result.add(converted == value ? property : new SimpleImmutableEntry<>(property.getKey(), converted));
+			}
+			return result;
+		}
+	}
+
+	private static Object invoke(final Method accessor, final Object target) {
+		try {
+			return accessor.invoke(target);
+		} catch (InvocationTargetException e) {
+			throw new RuntimeException(e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * The fields of the product that have the public accessor of the same
+	 * name, the fields of the super classes first.
+	 */
+	private static Map<String, Method> accessors(final Class<?> type) {
+		final Deque<Class<?>> hierarchy = new ArrayDeque<>();
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			hierarchy.push(c);
+		}
+
+		final Map<String, Method> accessors = new LinkedHashMap<>();
+		for (Class<?> c : hierarchy) {
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic() || field.getName().contains("$")) {
+					continue;
+				}
+				try {
+					final Method accessor = type.getMethod(field.getName());
+					if (accessor.getReturnType() != void.class) {
+						// The case class could be nested in a non-public class.
+						if (!Modifier.isPublic(accessor.getDeclaringClass().getModifiers())) {
+							accessor.setAccessible(true);
+						}
+						accessors.put(field.getName(), accessor);
+					}
+				} catch (NoSuchMethodException e) {
+					// Private field, not a part of the product.
+				} catch (SecurityException e) {
+					// Not accessible, not resolved.
+				}
+			}
+		}
+		return Collections.unmodifiableMap(accessors);
+	}
+}
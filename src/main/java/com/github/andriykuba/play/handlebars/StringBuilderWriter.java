@@ -0,0 +1,114 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.io.Writer;
+
+/**
+ * Not synchronized writer over the {@link StringBuilder}. It could be reset
+ * and reused, so the buffer is allocated once per thread, not once per render.
+ */
+final class StringBuilderWriter extends Writer {
+	private final static int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * Do not keep the buffer of the one huge render forever.
+	 */
+	private final static int MAX_RETAINED_CAPACITY = 1 << 20;
+
+	private StringBuilder builder;
+
+	/**
+	 * True while the writer is used by a render.
+	 */
+	boolean inUse;
+
+	StringBuilderWriter() {
+		this(0);
+	}
+
+	/**
+	 * @param capacity
+	 *            The expected size of the output, the default capacity is
+	 *            used if it is smaller.
+	 */
+	StringBuilderWriter(final int capacity) {
+		builder = new StringBuilder(Math.max(capacity, INITIAL_CAPACITY));
+	}
+
+	/**
+	 * Grow the buffer at once to the expected size of the output.
+	 */
+	void ensureCapacity(final int capacity) {
+		builder.ensureCapacity(capacity);
+	}
+
+	/**
+	 * @return the size of the content.
+	 */
+	int length() {
+		return builder.length();
+	}
+
+	/**
+	 * Clear the content, shrink the buffer if it is too big.
+	 */
+	void reset() {
+		if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+			builder = new StringBuilder(INITIAL_CAPACITY);
+		} else {
+			builder.setLength(0);
+		}
+	}
+
+	@Override
+	public void write(final int c) {
+		builder.append((char) c);
+	}
+
+	@Override
+	public void write(final char[] buffer, final int offset, final int length) {
+		builder.append(buffer, offset, length);
+	}
+
+	@Override
+	public void write(final String string) {
+		builder.append(string);
+	}
+
+	@Override
+	public void write(final String string, final int offset, final int length) {
+		builder.append(string, offset, offset + length);
+	}
+
+	@Override
+	public Writer append(final CharSequence sequence) {
+		builder.append(sequence);
+		return this;
+	}
+
+	@Override
+	public Writer append(final CharSequence sequence, final int start, final int end) {
+		builder.append(sequence, start, end);
+		return this;
+	}
+
+	@Override
+	public Writer append(final char c) {
+		builder.append(c);
+		return this;
+	}
+
+	@Override
+	public void flush() {
+		// Nothing to flush.
+	}
+
+	@Override
+	public void close() {
+		// Nothing to close.
+	}
+
+	@Override
+	public String toString() {
+		return builder.toString();
+	}
+}
@@ -0,0 +1,228 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builder of the template data from the dotted key paths, like
+ * "main.article.title".
+ *
+ * Key paths are split once and cached, so the repeated keys of the view
+ * models cost only a lookup. The maps of the path start small and grow with
+ * their keys. The data could be frozen in to the immutable views, nothing is
+ * copied.
+ *
+ * An empty element of the path is an empty key, "a..b" is the "b" in the ""
+ * map of the "a", the trailing dots are ignored.
+ */
+public final class TemplateData {
+	/**
+	 * Do not let the cache grow endlessly if the keys are generated.
+	 */
+	private final static int MAX_CACHED_PATHS = 4096;
+
+	private final static Map<String, String[]> PATHS = new ConcurrentHashMap<>();
+
+	/**
+	 * Elements of the known static key paths, the equal elements of all paths
+	 * share one string. Only {@link #intern(String...) intern} adds here.
+	 */
+	private final static Map<String, String> ELEMENTS = new ConcurrentHashMap<>();
+
+	private final Map<String, Object> root = new HashMap<>();
+
+	/**
+	 * The frozen data, null until the {@link #freeze() freeze}.
+	 */
+	private Map<String, Object> frozen;
+
+	/**
+	 * Share the elements of the known static key paths, like the keys of the
+	 * view models, between all paths that have them. The paths are cached
+	 * beyond the limit of the generated ones. Never pass the keys that come
+	 * from the user data, they are kept forever.
+	 *
+	 * @param keyPaths
+	 *            Paths like "main.article.title".
+	 */
+	public static void intern(final String... keyPaths) {
+		for (final String keyPath : keyPaths) {
+			final String[] path = split(keyPath);
+			for (int i = 0; i < path.length; i++) {
+				final String element = ELEMENTS.putIfAbsent(path[i], path[i]);
+				if (element != null) {
+					path[i] = element;
+				}
+			}
+			PATHS.put(keyPath, path);
+		}
+	}
+
+	/**
+	 * Puts the {@code object} into the data, see
+	 * {@link HandlebarsTools#put(Map, String, Object) put}.
+	 *
+	 * @param keyPath
+	 *            Path to put, like the path in JSON object
+	 * @param object
+	 *            Object to put
+	 * @return This builder.
+	 */
+	public TemplateData put(final String keyPath, final Object object) {
+		if (frozen != null) {
+			throw new IllegalStateException("The data is frozen");
+		}
+		put(root, keyPath, object);
+		return this;
+	}
+
+	/**
+	 * @return Mutable data, the builder still use it. The frozen data after
+	 *         the {@link #freeze() freeze}.
+	 */
+	public Map<String, Object> toMap() {
+		return (frozen == null) ? root : frozen;
+	}
+
+	/**
+	 * Freeze the data in to the immutable views. The maps of the paths are
+	 * frozen in place, the maps that were put as values are kept as they
+	 * are. The builder could not be used after.
+	 *
+	 * @return Immutable data.
+	 */
+	public Map<String, Object> freeze() {
+		if (frozen == null) {
+			frozen = freeze(root);
+		}
+		return frozen;
+	}
+
+	private static Map<String, Object> freeze(final Map<String, Object> map) {
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			if (entry.getValue() instanceof Branch) {
+				entry.setValue(freeze((Branch) entry.getValue()));
+			}
+		}
+		return Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * Puts the {@code object} into the {@code base} in one pass over the
+	 * path.
+	 *
+	 * @param base
+	 *            The base map, i.e. root
+	 * @param keyPath
+	 *            Path to put, like the path in JSON object
+	 * @param object
+	 *            Object to put
+	 */
+	@SuppressWarnings("unchecked")
+	static void put(final Map<String, Object> base, final String keyPath, final Object object) {
+		if (object == null) {
+			// No object, no operations.
+			return;
+		}
+
+		final String[] path = (keyPath == null) ? null : path(keyPath);
+		if (path == null || path.length == 0) {
+			if (!(object instanceof Map)) {
+				// It's not map merge, so we need to have a key.
+				throw new UnsupportedOperationException("Object must have a key to be putted in.");
+			}
+			// Do the map merging. The key could be a path as well.
+			for (Map.Entry<String, Object> entry : ((Map<String, Object>) object).entrySet()) {
+				put(base, entry.getKey(), entry.getValue());
+			}
+			return;
+		}
+
+		// Walk or create the branch of maps.
+		Map<String, Object> node = base;
+		final int last = path.length - 1;
+		for (int i = 0; i < last; i++) {
+			final Object value = node.get(path[i]);
+			if (value == null) {
+				final Map<String, Object> branch = new Branch();
+				node.put(path[i], branch);
+				node = branch;
+			} else if (value instanceof Map) {
+				// assume that every map in structure is Map<String, Object>
+				node = (Map<String, Object>) value;
+			} else {
+				throw new UnsupportedOperationException("The key \"" + path[i] + "\" is already assigned. Not a map");
+			}
+		}
+
+		final Object value = node.get(path[last]);
+		if (value == null) {
+			node.put(path[last], object);
+		} else if (value instanceof Map) {
+			put((Map<String, Object>) value, null, object);
+		} else {
+			// The value is already present.
+			throw new UnsupportedOperationException("The key \"" + path[last] + "\" is already assigned");
+		}
+	}
+
+	/**
+	 * Split the path by dots, the cached one or a new one.
+	 *
+	 * @param keyPath
+	 *            Path like "main.article.title".
+	 * @return Elements of the path.
+	 */
+	static String[] path(final String keyPath) {
+		String[] path = PATHS.get(keyPath);
+		if (path != null) {
+			return path;
+		}
+
+		path = split(keyPath);
+		if (PATHS.size() < MAX_CACHED_PATHS) {
+			PATHS.put(keyPath, path);
+		}
+		return path;
+	}
+
+	/**
+	 * Split the path by dots, the trailing empty elements are dropped. The
+	 * elements of the {@link #intern(String...) known paths} are shared, the
+	 * new ones are not added.
+	 */
+	private static String[] split(final String keyPath) {
+		final List<String> elements = new ArrayList<>(4);
+		int start = 0;
+		int size = 0;
+		while (start <= keyPath.length()) {
+			int end = keyPath.indexOf('.', start);
+			if (end < 0) {
+				end = keyPath.length();
+			}
+			final String element = keyPath.substring(start, end);
+			elements.add(ELEMENTS.getOrDefault(element, element));
+			if (end > start) {
+				size = elements.size();
+			}
+			start = end + 1;
+		}
+		return elements.subList(0, size).toArray(new String[size]);
+	}
+
+	/**
+	 * Map of the path, only these maps are frozen in place.
+	 */
+	private static final class Branch extends HashMap<String, Object> {
+		private static final long serialVersionUID = 1L;
+
+		Branch() {
+			// Most of the view model maps have a few keys.
+			super(4);
+		}
+	}
+}
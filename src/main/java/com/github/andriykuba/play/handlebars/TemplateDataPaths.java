@@ -0,0 +1,179 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.TagType;
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.io.TemplateSource;
+
+/**
+ * Collect the data paths that a template and its partials read.
+ *
+ * The analysis is conservative: every path is taken from the root, so the
+ * path inside a block is kept at the root as well as under the block value,
+ * and the block value itself is kept whole. "this" and the "@" data
+ * variables are not paths. The arguments of the "route" helper are
+ * collected from its action string.
+ *
+ * The partial calls and the "route" actions are found in the text of the
+ * compiled template, only the ones written in the template are followed.
+ * Dynamic partials, partials and templates applied by helpers, like a layout
+ * helper, and routes built by helpers are not followed, the data that they
+ * read is not collected.
+ *
+ * The template and its partials are kept with their last modification time,
+ * so the paths of the edited template are collected again if the templates
+ * are not cached.
+ */
+final class TemplateDataPaths {
+
+	/**
+	 * The partial call, "{{> name context}}" or "{{#> name}}".
+	 */
+	private final static Pattern PARTIAL = Pattern.compile("\\{\\{~?\\s*#?>\\s*([^\\s}~(]+)\\s*([^\\s}~=]+(?=[\\s}~]))?");
+
+	/**
+	 * The action of the "route" helper, "route 'controllers.Items.show(id)'".
+	 */
+	private final static Pattern ROUTE = Pattern.compile("\\broute\\s+([\"'])[^\"'(]*\\(([^)]*)\\)\\1");
+
+	private final static Pattern LITERAL = Pattern.compile("-?\\d+(\\.\\d+)?|true|false|null|undefined|[\"'].*");
+
+	private final DataProjection projection;
+
+	/**
+	 * Last modification time by the name of the template and its partials.
+	 */
+	private final Map<String, Long> versions;
+
+	private TemplateDataPaths(
+			final Set<String> paths,
+			final Map<String, Long> versions) {
+		this.projection = new DataProjection(paths);
+		this.versions = versions;
+	}
+
+	/**
+	 * @return the projection to the data paths.
+	 */
+	DataProjection getProjection() {
+		return projection;
+	}
+
+	/**
+	 * The source keeps its modification time, so the sources are asked from
+	 * the loader again.
+	 *
+	 * @param handlebars
+	 *            The engine, used for the templates lookup.
+	 * @return true if the template or any of its partials has been modified
+	 *         or removed since the paths were collected.
+	 */
+	boolean isModified(final Handlebars handlebars) {
+		for (Map.Entry<String, Long> version : versions.entrySet()) {
+			try {
+				if (handlebars.getLoader().sourceAt(version.getKey()).lastModified() != version.getValue()) {
+					return true;
+				}
+			} catch (IOException e) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param handlebars
+	 *            The engine, used for the partials and helpers lookup.
+	 * @param template
+	 *            The template name.
+	 * @return the data paths of the template and its partials.
+	 * @throws IOException
+	 *             if the template could not be loaded.
+	 */
+	static TemplateDataPaths collect(final Handlebars handlebars, final String template) throws IOException {
+		final Set<String> paths = new TreeSet<>();
+		final Map<String, Long> versions = new LinkedHashMap<>();
+		final Set<String> partials = new HashSet<>();
+		partials.add(template);
+		collect(handlebars, template, paths, versions, partials);
+		return new TemplateDataPaths(paths, versions);
+	}
+
+	private static void collect(
+			final Handlebars handlebars,
+			final String location,
+			final Set<String> paths,
+			final Map<String, Long> versions,
+			final Set<String> partials) throws IOException {
+		// The time is taken before the compilation, an edit in between is
+		// seen by the next lookup.
+		final TemplateSource source = handlebars.getLoader().sourceAt(location);
+		versions.put(location, source.lastModified());
+		final Template template = handlebars.compile(source);
+
+		for (String name : template.collect(TagType.values())) {
+			if (handlebars.helper(name) == null) {
+				add(paths, name);
+			}
+		}
+		for (String name : template.collectReferenceParameters()) {
+			add(paths, name);
+		}
+
+		final String text = template.text();
+
+		final Matcher route = ROUTE.matcher(text);
+		while (route.find()) {
+			for (String argument : route.group(2).split(",")) {
+				add(paths, argument);
+			}
+		}
+
+		final Matcher partial = PARTIAL.matcher(text);
+		while (partial.find()) {
+			if (partial.group(2) != null) {
+				add(paths, partial.group(2));
+			}
+
+			final String name = partial.group(1).replaceAll("^[\"']|[\"']$", "");
+			if (partials.add(name)) {
+				try {
+					collect(handlebars, name, paths, versions, partials);
+				} catch (FileNotFoundException e) {
+					// Inline partial or the layout slot, its body is not in
+					// the loader.
+				}
+			}
+		}
+	}
+
+	private static void add(final Set<String> paths, final String name) {
+		String path = name.trim();
+		if (path.startsWith("@root.")) {
+			path = path.substring("@root.".length());
+		}
+		while (path.startsWith("../")) {
+			path = path.substring("../".length());
+		}
+		if (path.startsWith("./")) {
+			path = path.substring("./".length());
+		} else if (path.startsWith("this.") || path.startsWith("this/")) {
+			path = path.substring("this.".length());
+		}
+		if (path.isEmpty() || path.equals("this") || path.equals(".") || path.startsWith("@")
+				|| LITERAL.matcher(path).matches()) {
+			return;
+		}
+		paths.add(path);
+	}
+}
@@ -0,0 +1,67 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.github.jknack.handlebars.Handlebars;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Data projections of the templates, see
+ * {@link HandlebarsApi#getDataPaths(String) getDataPaths}. They are cached
+ * per template and theme. The same as the compiled templates, they are
+ * collected again after an edit only if the templates are not cached.
+ */
+final class TemplateProjections {
+
+	private final Handlebars handlebars;
+	private final Themes themes;
+
+	/**
+	 * The templates are cached, they are not reloaded after an edit.
+	 */
+	private final boolean cacheEnabled;
+
+	/**
+	 * Data paths by the template and theme.
+	 */
+	private final Cache<String, TemplateDataPaths> projections = CacheBuilder.newBuilder()
+			.expireAfterWrite(10, TimeUnit.MINUTES).maximumSize(1000).build();
+
+	/**
+	 * @param handlebars
+	 *            The engine.
+	 * @param themes
+	 *            The themes, the paths are collected per theme.
+	 * @param cacheEnabled
+	 *            The templates are cached.
+	 */
+	TemplateProjections(final Handlebars handlebars, final Themes themes, final boolean cacheEnabled) {
+		this.handlebars = handlebars;
+		this.themes = themes;
+		this.cacheEnabled = cacheEnabled;
+	}
+
+	/**
+	 * @param templateName
+	 *            Name of the template.
+	 * @return the projection to the data paths of the template.
+	 */
+	DataProjection get(final String templateName) {
+		final Callable<TemplateDataPaths> collect = () -> TemplateDataPaths.collect(handlebars, templateName);
+		try {
+			final String theme = themes.current();
+			final String key = theme == null ? templateName : theme + ":" + templateName;
+			final TemplateDataPaths paths = projections.get(key, collect);
+			if (cacheEnabled || !paths.isModified(handlebars)) {
+				return paths.getProjection();
+			}
+			projections.invalidate(key);
+			return projections.get(key, collect).getProjection();
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+}
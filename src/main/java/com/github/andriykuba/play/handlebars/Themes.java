@@ -0,0 +1,103 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.github.andriykuba.play.handlebars.io.ThemeTemplateLoader;
+import com.github.jknack.handlebars.io.TemplateLoader;
+
+/**
+ * The themes of the templates, see "handlebars.themes" configuration and
+ * {@link ThemeTemplateLoader}. Without the themes there is only the base
+ * templates.
+ */
+final class Themes {
+
+	/**
+	 * Loader of the themes, null if there are no themes.
+	 */
+	private final ThemeTemplateLoader loader;
+
+	private Themes(final ThemeTemplateLoader loader) {
+		this.loader = loader;
+	}
+
+	/**
+	 * @param locations
+	 *            The template folders or bundles of the themes by the theme
+	 *            name.
+	 * @param cacheEnabled
+	 *            The templates are cached, the theme templates are not added
+	 *            at runtime.
+	 * @param base
+	 *            Loader of the base templates, null for the inline rendering.
+	 * @param loaderOf
+	 *            Creates the loader of the location, the same way as the base
+	 *            loader is created.
+	 * @return the themes.
+	 */
+	static Themes create(
+			final Map<String, Object> locations,
+			final boolean cacheEnabled,
+			final TemplateLoader base,
+			final Function<String, TemplateLoader> loaderOf) {
+		if (base == null || locations.isEmpty()) {
+			return new Themes(null);
+		}
+
+		final Map<String, TemplateLoader> loaders = new HashMap<>();
+		for (Map.Entry<String, Object> theme : locations.entrySet()) {
+			loaders.put(theme.getKey(), loaderOf.apply(theme.getValue().toString()));
+		}
+		return new Themes(new ThemeTemplateLoader(base, loaders, cacheEnabled));
+	}
+
+	/**
+	 * @param base
+	 *            Loader of the base templates.
+	 * @return the loader of the themes over the base one, the base loader if
+	 *         there are no themes.
+	 */
+	TemplateLoader loader(final TemplateLoader base) {
+		return loader == null ? base : loader;
+	}
+
+	/**
+	 * @return The configured themes.
+	 */
+	Set<String> names() {
+		return loader == null ? Collections.emptySet() : loader.getThemes();
+	}
+
+	/**
+	 * @return the theme of the current thread, null for the base templates.
+	 */
+	String current() {
+		return loader == null ? null : loader.currentTheme();
+	}
+
+	/**
+	 * Run the action with the theme bound to the current thread.
+	 *
+	 * @param theme
+	 *            The theme name, null for the base templates.
+	 * @param action
+	 *            Action that renders the templates.
+	 * @param <T>
+	 *            The result type.
+	 * @return The result of the action.
+	 */
+	<T> T with(final String theme, final Supplier<T> action) {
+		if (loader == null) {
+			if (theme != null) {
+				throw new IllegalArgumentException("Unknown theme \"" + theme + "\"");
+			}
+			return action.get();
+		}
+		return loader.withTheme(theme, action);
+	}
+}
@@ -0,0 +1,72 @@
+package com.github.andriykuba.play.handlebars.helpers;
+
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Helper;
+
+/**
+ * Register the Play and the string helpers as direct {@link Helper}
+ * implementations.
+ *
+ * {@code Handlebars.registerHelpers(Object)} wraps every public method in to
+ * the reflective helper, with the method lookup and the arguments array on
+ * every call. These helpers are called the most, so they are registered by
+ * hand. The arguments are mapped in the same way: the first argument is the
+ * context, the next are the parameters, the last one could be the options.
+ */
+public final class HelperRegistration {
+
+  private HelperRegistration() {
+  }
+
+  /**
+   * Register the "asset", "route", "message", "encodeUrlParameter",
+   * "if_equals" and "concat" helpers.
+   *
+   * @param handlebars
+   *  The engine.
+   * @param playHelpers
+   *  Implementation of the Play helpers.
+   */
+  public static void register(final Handlebars handlebars, final PlayHelpers playHelpers) {
+    handlebars.registerHelper("asset", (Helper<String>) (context, options) -> {
+      try {
+        return playHelpers.asset(context, options);
+      } catch (Exception e) {
+        throw failure("asset", e);
+      }
+    });
+
+    handlebars.registerHelper("route", (Helper<String>) (context, options) -> {
+      try {
+        return playHelpers.route(context, options);
+      } catch (Exception e) {
+        throw failure("route", e);
+      }
+    });
+
+    handlebars.registerHelper("message", (Helper<Object>) playHelpers::message);
+
+    handlebars.registerHelper("encodeUrlParameter", (Helper<Object>) (context, options) -> {
+      try {
+        return StringHelpers.encodeUrlParameter(context);
+      } catch (Exception e) {
+        throw failure("encodeUrlParameter", e);
+      }
+    });
+
+    handlebars.registerHelper("if_equals", (Helper<Object>) (context, options) ->
+        StringHelpers.if_equals(context, options.param(0), options.param(1)));
+
+    handlebars.registerHelper("concat", (Helper<Object>) StringHelpers::concat);
+  }
+
+  /**
+   * The same exceptions as the reflective helper throws.
+   */
+  private static RuntimeException failure(final String helper, final Exception e) {
+    if (e instanceof RuntimeException) {
+      return (RuntimeException) e;
+    }
+    return new IllegalStateException("could not execute helper: " + helper, e);
+  }
+}
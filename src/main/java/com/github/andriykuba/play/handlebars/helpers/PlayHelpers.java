@@ -8,8 +8,12 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 import com.github.andriykuba.play.handlebars.HandlebarsApi;
+import com.github.andriykuba.play.handlebars.HitCounter;
 import com.github.jknack.handlebars.Context;
+import com.github.jknack.handlebars.EscapingStrategy;
+import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Options;
+import com.github.jknack.handlebars.TagType;
 import com.google.common.base.Splitter;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -28,11 +32,15 @@ import controllers.AssetsFinder;
 public final class PlayHelpers {
 
   // Guava cache is a thread-safe so we can use it here with no doubt.
-  final LoadingCache<String, CharSequence> reverseRoutingCache;
-  final LoadingCache<String, CharSequence> assetsRoutingCache;
+  final LoadingCache<String, Url> reverseRoutingCache;
+  final LoadingCache<String, Url> assetsRoutingCache;
 
   final MessagesApi messagesApi;
   final AssetsFinder assetsFinder;
+
+  // Counters of the hot keys, null if they are not counted.
+  private volatile HitCounter routeHits;
+  private volatile HitCounter assetHits;
   
   final private static Splitter argumentsSplitter = 
       Splitter.on(Pattern.compile(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)"));
@@ -59,21 +67,65 @@ public final class PlayHelpers {
     
     // Initialize the reverse router cache.
     reverseRoutingCache = CacheBuilder.newBuilder().build(
-        new CacheLoader<String, CharSequence>() {
-          public CharSequence load(String key) throws Exception {
-            return PlayHelpers.loadRoute(key, classLoader);
+        new CacheLoader<String, Url>() {
+          public Url load(String key) throws Exception {
+            return new Url(PlayHelpers.loadRoute(key, classLoader));
           }
         });
     
     // Initialize the assets router cache.
     assetsRoutingCache = CacheBuilder.newBuilder().build(
-        new CacheLoader<String, CharSequence>() {
-          public CharSequence load(String key) throws Exception {
-            return PlayHelpers.loadAsset(key, assetsFinder);
+        new CacheLoader<String, Url>() {
+          public Url load(String key) throws Exception {
+            return new Url(PlayHelpers.loadAsset(key, assetsFinder));
           }
         });
   }
 
+  /**
+   * The cached URL, as is and escaped for the output. It is escaped once with
+   * the escaping of the engine, and again if the engine escaping is changed.
+   */
+  static final class Url {
+    final String raw;
+    private volatile Escaped escaped;
+
+    Url(final CharSequence url) {
+      this.raw = url.toString();
+    }
+
+    /**
+     * The escaped URL for the "{{helper}}" output, so the engine does not
+     * escape the same URL on every call. The URL as is for the sub-expression
+     * or the "{{{helper}}}" output.
+     */
+    CharSequence output(final Options options) {
+      if (options.tagType != TagType.VAR) {
+        return raw;
+      }
+      final EscapingStrategy escaping = options.handlebars.getEscapingStrategy();
+      Escaped current = escaped;
+      if (current == null || current.escaping != escaping) {
+        current = new Escaped(escaping, new Handlebars.SafeString(escaping.escape(raw).toString()));
+        escaped = current;
+      }
+      return current.url;
+    }
+  }
+
+  /**
+   * The escaped URL with the escaping that made it.
+   */
+  private static final class Escaped {
+    final EscapingStrategy escaping;
+    final Handlebars.SafeString url;
+
+    Escaped(final EscapingStrategy escaping, final Handlebars.SafeString url) {
+      this.escaping = escaping;
+      this.url = url;
+    }
+  }
+
   /**
    * Replacement of the Twirl's "@routes.Assets.versioned".
    * 
@@ -85,8 +137,76 @@ public final class PlayHelpers {
    * 	Any exception in the case of resolving assets URL 
    */
   public CharSequence asset(final String url) throws Exception {
+    return cachedAsset(url).raw;
+  }
+
+  /**
+   * The same as {@link #asset(String) asset} but the "{{asset}}" output is
+   * already escaped.
+   * 
+   * @param url
+   * 	relative path to the asset.
+   * @param options
+   * 	options of the helper call.
+   * @return 
+   * 	actual path to the asset.
+   * @throws Exception
+   * 	Any exception in the case of resolving assets URL 
+   */
+  public CharSequence asset(final String url, final Options options) throws Exception {
+    return cachedAsset(url).output(options);
+  }
+
+  private Url cachedAsset(final String url) throws Exception {
+    final HitCounter hits = assetHits;
+    if (hits != null) {
+      hits.hit(url);
+    }
     return assetsRoutingCache.get(url);
   }
+
+  /**
+   * Count the hits of the routes and assets cache keys.
+   * 
+   * @param routeHits
+   *  Counter of the route expressions, null to stop counting.
+   * @param assetHits
+   *  Counter of the asset paths, null to stop counting.
+   */
+  public void countHits(final HitCounter routeHits, final HitCounter assetHits) {
+    this.routeHits = routeHits;
+    this.assetHits = assetHits;
+  }
+
+  /**
+   * Fill the routes and assets caches. The keys that could not be resolved
+   * any more are skipped.
+   * 
+   * @param routes
+   *  Route expressions, as they are cached by the {@link #route(String, Options) route} helper.
+   * @param assets
+   *  Asset paths.
+   * @return
+   *  Count of the skipped keys.
+   */
+  public int preload(final Iterable<String> routes, final Iterable<String> assets) {
+    int skipped = 0;
+    for (String route : routes) {
+      try {
+        reverseRoutingCache.get(route);
+      } catch (Exception e) {
+        skipped++;
+      }
+    }
+    for (String asset : assets) {
+      try {
+        assetsRoutingCache.get(asset);
+      } catch (Exception e) {
+        skipped++;
+      }
+    }
+    return skipped;
+  }
   
   /**
    * Called by the cache loader. Do the same as {@link #asset(String) asset} 
@@ -120,13 +240,18 @@ public final class PlayHelpers {
    * @param options
    * 	Object for getting context to resolve handlebar variables in method signature.
    * @return 
-   * 	URL that correspond to the action
+   * 	URL that correspond to the action, already escaped for the "{{route}}"
+   * 	output.
    * @throws Exception
    * 	any exception in the cache
    */
   public CharSequence route(final String action, final Options options) throws Exception {
 	String actionReolved = resolveContextVariables(action.trim(), options.context);
-    return reverseRoutingCache.get(actionReolved);
+    final HitCounter hits = routeHits;
+    if (hits != null) {
+      hits.hit(actionReolved);
+    }
+    return reverseRoutingCache.get(actionReolved).output(options);
   }
 
   /**
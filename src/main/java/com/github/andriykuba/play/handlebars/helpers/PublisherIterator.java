@@ -0,0 +1,177 @@
+package com.github.andriykuba.play.handlebars.helpers;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Blocking iterator over the Reactive Streams {@link Publisher}.
+ *
+ * Elements are requested by batches, the next batch is requested only when
+ * the previous one is consumed, so not more than one batch is kept in memory.
+ *
+ * The wait for the next signal is limited, the stalled publisher is cancelled
+ * and the iteration fails with the {@link Timeout}. The publisher that signals
+ * more elements than requested is cancelled as well, the iteration fails after
+ * the requested elements.
+ */
+final class PublisherIterator implements Iterator<Object>, Subscriber<Object> {
+
+  private final static Object COMPLETE = new Object();
+
+  private final int batch;
+
+  private final long timeoutNanos;
+
+  // Never more than one batch and the terminal signal.
+  private final BlockingQueue<Object> queue;
+
+  private volatile Subscription subscription;
+
+  // Requested but not yet signalled elements.
+  private final AtomicLong demand = new AtomicLong();
+
+  private volatile boolean overflowed;
+
+  private Object next;
+  private int consumed;
+  private boolean terminated;
+
+  /**
+   * @param publisher
+   *  The source of the elements.
+   * @param batch
+   *  How many elements are requested at once.
+   * @param timeoutNanos
+   *  How long to wait for the next signal of the publisher.
+   */
+  PublisherIterator(final Publisher<?> publisher, final int batch, final long timeoutNanos) {
+    this.batch = batch;
+    this.timeoutNanos = timeoutNanos;
+    this.queue = new ArrayBlockingQueue<>(batch + 1);
+    publisher.subscribe(this);
+  }
+
+  @Override
+  public void onSubscribe(final Subscription subscription) {
+    this.subscription = subscription;
+    request();
+  }
+
+  @Override
+  public void onNext(final Object element) {
+    if (overflowed) {
+      return;
+    }
+    if (demand.decrementAndGet() < 0) {
+      // The queue has the room for the failure, it keeps only the requested elements.
+      overflowed = true;
+      subscription.cancel();
+      queue.offer(new Failure(new IllegalStateException("Publisher signalled more elements than requested")));
+      return;
+    }
+    queue.offer(element);
+  }
+
+  @Override
+  public void onError(final Throwable error) {
+    if (!overflowed) {
+      queue.offer(new Failure(error));
+    }
+  }
+
+  @Override
+  public void onComplete() {
+    if (!overflowed) {
+      queue.offer(COMPLETE);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      try {
+        next = queue.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        cancel();
+        throw new RuntimeException("Interrupted while waiting for the publisher", e);
+      }
+      if (next == null) {
+        cancel();
+        throw new Timeout(timeoutNanos);
+      }
+    }
+
+    if (next == COMPLETE) {
+      terminated = true;
+      return false;
+    }
+    if (next instanceof Failure) {
+      terminated = true;
+      throw new RuntimeException("Publisher failed", ((Failure) next).error);
+    }
+    return true;
+  }
+
+  @Override
+  public Object next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    final Object element = next;
+    next = null;
+
+    if (++consumed == batch) {
+      consumed = 0;
+      request();
+    }
+    return element;
+  }
+
+  private void request() {
+    demand.addAndGet(batch);
+    subscription.request(batch);
+  }
+
+  /**
+   * Stop the publisher if the iteration was not finished.
+   */
+  void cancel() {
+    final Subscription current = subscription;
+    if (!terminated && current != null) {
+      terminated = true;
+      current.cancel();
+    }
+  }
+
+  /**
+   * The publisher did not signal in time.
+   */
+  static final class Timeout extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    Timeout(final long timeoutNanos) {
+      super("Publisher did not signal in " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+    }
+  }
+
+  /**
+   * The error signal in the queue.
+   */
+  private static final class Failure {
+    final Throwable error;
+
+    Failure(final Throwable error) {
+      this.error = error;
+    }
+  }
+}
@@ -0,0 +1,261 @@
+package com.github.andriykuba.play.handlebars.helpers;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+import org.reactivestreams.Publisher;
+
+import com.github.andriykuba.play.handlebars.RenderGuard;
+import com.github.jknack.handlebars.Context;
+import com.github.jknack.handlebars.Helper;
+import com.github.jknack.handlebars.Options;
+import com.github.jknack.handlebars.helper.DefaultHelperRegistry;
+import com.github.jknack.handlebars.helper.EachHelper;
+
+import akka.stream.Materializer;
+import akka.stream.javadsl.AsPublisher;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+
+/**
+ * The "each" helper that also iterates over the one-shot sources of data:
+ * {@link java.util.Iterator}, {@link java.util.stream.Stream}, Reactive Streams
+ * {@link org.reactivestreams.Publisher} and Akka {@code Source}.
+ *
+ * Elements are taken one by one while the block is written to the output, so
+ * the data set is never kept in the memory. The output is written straight
+ * only if the helper is at the top level of the template, inside of another
+ * block it is buffered until that block ends. Everything else is passed to
+ * the original {@link EachHelper}.
+ *
+ * The iterations are counted by the {@link RenderGuard} if the render has
+ * limits, the properties of a map or an object as well as the elements. The
+ * output of the block is checked on every iteration too, it is kept in a
+ * buffer if the helper is inside of another block.
+ */
+public final class StreamingEachHelper implements Helper<Object> {
+
+  /**
+   * It replaces the original helper.
+   */
+  public static final String NAME = EachHelper.NAME;
+
+  /**
+   * How many elements are requested from the publisher at once.
+   */
+  private static final int PUBLISHER_BATCH = 256;
+
+  private volatile Materializer materializer;
+
+  private volatile long publisherTimeoutNanos = TimeUnit.SECONDS.toNanos(30);
+
+  /**
+   * Akka sources could be iterated only if the materializer is set.
+   *
+   * @param materializer
+   *  Materializer for running the Akka sources.
+   */
+  public void setMaterializer(final Materializer materializer) {
+    this.materializer = materializer;
+  }
+
+  /**
+   * How long to wait for the next element of the publisher or the Akka
+   * source. The render time limit shortens the wait if it is set.
+   *
+   * @param timeout
+   *  The maximal wait.
+   * @param unit
+   *  Unit of the wait.
+   */
+  public void setPublisherTimeout(final long timeout, final TimeUnit unit) {
+    this.publisherTimeoutNanos = unit.toNanos(timeout);
+  }
+
+  @Override
+  public Object apply(final Object context, final Options options) throws IOException {
+    final RenderGuard guard = options.context.data(RenderGuard.DATA);
+
+    if (context instanceof Iterator) {
+      return each((Iterator<?>) context, guard, options);
+    }
+
+    if (context instanceof BaseStream) {
+      try (BaseStream<?, ?> stream = (BaseStream<?, ?>) context) {
+        return each(stream.iterator(), guard, options);
+      }
+    }
+
+    if (context instanceof akka.stream.scaladsl.Source) {
+      return each(publisher(((akka.stream.scaladsl.Source<?, ?>) context).asJava()), guard, options);
+    }
+
+    if (context instanceof Source) {
+      return each(publisher((Source<?, ?>) context), guard, options);
+    }
+
+    if (context instanceof Publisher) {
+      return each((Publisher<?>) context, guard, options);
+    }
+
+    if (guard != null && context instanceof Iterable) {
+      return each(((Iterable<?>) context).iterator(), guard, options);
+    }
+
+    if (guard != null && context != null) {
+      return eachProperty(context, guard, options);
+    }
+
+    return EachHelper.INSTANCE.apply(context, options);
+  }
+
+  /**
+   * The properties of the map or the object, the same as the original helper
+   * does, but every property and its output are counted by the guard.
+   */
+  private static Object eachProperty(final Object context, final RenderGuard guard, final Options options)
+      throws IOException {
+    final Options.Buffer buffer = options.buffer();
+    final long position = guard.position();
+    long length = 0;
+    final Iterator<Map.Entry<String, Object>> properties = options.propertySet(context).iterator();
+    boolean first = true;
+    while (properties.hasNext()) {
+      guard.iteration();
+      final Map.Entry<String, Object> property = properties.next();
+      final String key = property.getKey();
+      final Object value = property.getValue();
+      final Context item = Context.newBuilder(options.context, value)
+          .combine("@key", key)
+          .combine("@first", first ? "first" : "")
+          .combine("@last", !properties.hasNext() ? "last" : "")
+          .build();
+      final CharSequence output = options.apply(options.fn, item, Arrays.<Object>asList(value, key));
+      length += output.length();
+      guard.buffered(position, length);
+      buffer.append(output);
+      first = false;
+    }
+    if (first) {
+      buffer.append(options.inverse());
+    }
+    return buffer;
+  }
+
+  private Object each(final Publisher<?> publisher, final RenderGuard guard, final Options options)
+      throws IOException {
+    final long timeout = (guard == null)
+        ? publisherTimeoutNanos
+        : Math.max(0, Math.min(publisherTimeoutNanos, guard.remainingNanos()));
+    final PublisherIterator iterator = new PublisherIterator(publisher, PUBLISHER_BATCH, timeout);
+    try {
+      return each(iterator, guard, options);
+    } catch (PublisherIterator.Timeout e) {
+      if (guard != null) {
+        // The render is out of time, not the publisher.
+        guard.checkDeadline();
+      }
+      throw e;
+    } finally {
+      iterator.cancel();
+    }
+  }
+
+  private static Object each(final Iterator<?> iterator, final RenderGuard guard, final Options options)
+      throws IOException {
+    if (guard == null) {
+      // One-shot iterable, the original helper asks for the iterator once.
+      @SuppressWarnings("unchecked")
+      final Iterable<Object> iterable = () -> (Iterator<Object>) iterator;
+      return EachHelper.INSTANCE.apply(iterable, options);
+    }
+
+    // The same as the original helper does, but every element and its
+    // output are counted by the guard.
+    final Options.Buffer buffer = options.buffer();
+    final long position = guard.position();
+    long length = 0;
+    final int base = options.hash("base", 0);
+    int index = base;
+    while (iterator.hasNext()) {
+      guard.iteration();
+      final Object value = iterator.next();
+      final boolean even = (index % 2 == 0);
+      final Context item = Context.newContext(options.context, value)
+          .combine("@index", index)
+          .combine("@first", index == base ? "first" : "")
+          .combine("@last", !iterator.hasNext() ? "last" : "")
+          .combine("@odd", even ? "" : "odd")
+          .combine("@even", even ? "even" : "")
+          .combine("@index_1", index + 1);
+      final CharSequence output = options.apply(options.fn, item, Arrays.<Object>asList(value, index));
+      length += output.length();
+      guard.buffered(position, length);
+      buffer.append(output);
+      index++;
+    }
+    if (index == base) {
+      buffer.append(options.inverse());
+    }
+    return buffer;
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private Publisher<?> publisher(final Source<?, ?> source) {
+    final Materializer current = materializer;
+    if (current == null) {
+      throw new IllegalStateException("Materializer is not set, Akka Source could not be iterated");
+    }
+    return (Publisher<?>) ((Source) source).runWith(Sink.asPublisher(AsPublisher.WITHOUT_FANOUT), current);
+  }
+
+  /**
+   * The helpers with this "each" in place of the original one. The original
+   * helper is shadowed, not replaced, so the registry does not warn about it.
+   * The application could still replace "each" with its own helper.
+   */
+  public static final class Registry extends DefaultHelperRegistry {
+    private volatile Helper<?> each;
+
+    /**
+     * @param each
+     *  The helper that shadows the original one.
+     */
+    public Registry(final StreamingEachHelper each) {
+      this.each = each;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <C> Helper<C> helper(final String name) {
+      return NAME.equals(name) ? (Helper<C>) each : super.helper(name);
+    }
+
+    @Override
+    public <H> Registry registerHelper(final String name, final Helper<H> helper) {
+      super.registerHelper(name, helper);
+      if (NAME.equals(name)) {
+        each = helper;
+      }
+      return this;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Helper<?>>> helpers() {
+      final Set<Map.Entry<String, Helper<?>>> helpers = new LinkedHashSet<>();
+      for (Map.Entry<String, Helper<?>> helper : super.helpers()) {
+        helpers.add(NAME.equals(helper.getKey())
+            ? new AbstractMap.SimpleImmutableEntry<String, Helper<?>>(NAME, each)
+            : helper);
+      }
+      return helpers;
+    }
+  }
+}
@@ -1,19 +1,29 @@
 package com.github.andriykuba.play.handlebars.helpers;
 
-import java.net.URLEncoder;
-import java.util.StringJoiner;
-
 import com.github.jknack.handlebars.Options;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * Helpers for work with strings.
  *
  */
 public final class StringHelpers {
+
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  // Only the short parameters are cached, like the tags or the categories.
+  private static final int MAX_CACHED_PARAMETER = 128;
+
+  // The encoded parameters that are not ASCII-safe, repeated in the loops.
+  private static final Cache<String, String> encodedParameters = 
+      CacheBuilder.newBuilder().maximumSize(1024).build();
 	  
   /**
    * Encode the given string so it could be used in the URL as parameter.
-   * There is {@link java.net.URLEncoder#encode java.net.URLEncoder.encode} under the hood.
+   * The result is the same as {@link java.net.URLEncoder#encode java.net.URLEncoder.encode} 
+   * with the UTF-8 encoding. The parameter that does not need the encoding is 
+   * returned as is.
    * 
    * @param parameter
    * 	string that will be encoded.
@@ -24,7 +34,85 @@ public final class StringHelpers {
    */
   public static CharSequence encodeUrlParameter(final Object parameter) throws Exception{
     if(parameter == null) return "";
-    return URLEncoder.encode(parameter.toString(), "UTF-8");
+    final String value = parameter.toString();
+
+    // Most of the parameters are ids and plain words.
+    final int length = value.length();
+    int safe = 0;
+    while (safe < length && isUnreserved(value.charAt(safe))) {
+      safe++;
+    }
+    if (safe == length) {
+      return value;
+    }
+
+    if (length > MAX_CACHED_PARAMETER) {
+      return encode(value, safe);
+    }
+    final String cached = encodedParameters.getIfPresent(value);
+    if (cached != null) {
+      return cached;
+    }
+    final String encoded = encode(value, safe);
+    encodedParameters.put(value, encoded);
+    return encoded;
+  }
+
+  /**
+   * The characters that {@link java.net.URLEncoder} does not encode.
+   */
+  private static boolean isUnreserved(final char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') 
+        || c == '-' || c == '_' || c == '.' || c == '*';
+  }
+
+  /**
+   * Encode the UTF-8 bytes of the string from the given position, the space
+   * becomes "+". The lone surrogate is encoded as "?", like the
+   * {@link java.net.URLEncoder} does.
+   */
+  private static String encode(final String value, final int start) {
+    final int length = value.length();
+    final StringBuilder encoded = new StringBuilder(length + 16);
+    encoded.append(value, 0, start);
+
+    for (int i = start; i < length; i++) {
+      final char c = value.charAt(i);
+      if (isUnreserved(c)) {
+        encoded.append(c);
+      } else if (c == ' ') {
+        encoded.append('+');
+      } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+        appendUtf8(encoded, Character.toCodePoint(c, value.charAt(++i)));
+      } else if (Character.isSurrogate(c)) {
+        appendUtf8(encoded, '?');
+      } else {
+        appendUtf8(encoded, c);
+      }
+    }
+    return encoded.toString();
+  }
+
+  private static void appendUtf8(final StringBuilder encoded, final int codePoint) {
+    if (codePoint < 0x80) {
+      appendByte(encoded, codePoint);
+    } else if (codePoint < 0x800) {
+      appendByte(encoded, 0xC0 | (codePoint >> 6));
+      appendByte(encoded, 0x80 | (codePoint & 0x3F));
+    } else if (codePoint < 0x10000) {
+      appendByte(encoded, 0xE0 | (codePoint >> 12));
+      appendByte(encoded, 0x80 | ((codePoint >> 6) & 0x3F));
+      appendByte(encoded, 0x80 | (codePoint & 0x3F));
+    } else {
+      appendByte(encoded, 0xF0 | (codePoint >> 18));
+      appendByte(encoded, 0x80 | ((codePoint >> 12) & 0x3F));
+      appendByte(encoded, 0x80 | ((codePoint >> 6) & 0x3F));
+      appendByte(encoded, 0x80 | (codePoint & 0x3F));
+    }
+  }
+
+  private static void appendByte(final StringBuilder encoded, final int b) {
+    encoded.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
   }
   
   /**
@@ -37,7 +125,8 @@ public final class StringHelpers {
    * @param value
    * 	String representation of this object would be returned if {@code obj1} equals {@code obj2}
    * @return
-   * 	{@code value} as string or an empty string.
+   * 	{@code value} as string or an empty string. It is not a safe string,
+   * 	the value could be the user data, so the engine escapes it.
    */
   public static CharSequence if_equals(final Object obj1, final Object obj2, final Object value){
     if(obj1 == null) {
@@ -53,16 +142,33 @@ public final class StringHelpers {
    * 
    * @param firstObjectToConcat  first object to concatenation
    * @param options the next objects to concatenation
-   * @return resulting string
+   * @return resulting string. It is not a safe string, the parts could be the
+   *  user data, so the engine escapes it. There is nothing to cache, the
+   *  string is new on every call.
    */
   public static CharSequence concat(Object firstObjectToConcat, Options options) {
-    StringJoiner joiner = new StringJoiner("");
-    joiner.add(String.valueOf(firstObjectToConcat));
+    final Object[] params = options.params;
+    if (params.length == 0) {
+      return String.valueOf(firstObjectToConcat);
+    }
+
+    // The builder is sized once, for the strings at least.
+    int length = expectedLength(firstObjectToConcat);
+    for (Object param : params) {
+      length += expectedLength(param);
+    }
+
+    final StringBuilder builder = new StringBuilder(length);
+    builder.append(firstObjectToConcat);
     
     // all params except the first one
-    for (Object param : options.params) {
-        joiner.add(String.valueOf(param));
+    for (Object param : params) {
+      builder.append(param);
     }
-    return joiner.toString();
+    return builder.toString();
+  }
+
+  private static int expectedLength(final Object value) {
+    return (value instanceof CharSequence) ? ((CharSequence) value).length() : 16;
   }
 }
@@ -0,0 +1,216 @@
+package com.github.andriykuba.play.handlebars.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.jknack.handlebars.io.AbstractTemplateLoader;
+import com.github.jknack.handlebars.io.AbstractTemplateSource;
+import com.github.jknack.handlebars.io.TemplateSource;
+
+/**
+ * Template loader that reads all templates from one bundle file.
+ *
+ * The bundle is produced at the packaging time by the
+ * {@link TemplateBundleWriter}. The bundle is memory-mapped, so the
+ * template content is read straight from the page cache on the cache miss
+ * and the bundle is not kept in the heap. The classpath bundle could not be
+ * mapped in place, it is copied to a temporary file once and mapped.
+ *
+ * The bundle format:
+ *
+ * <pre>
+ * int     magic number
+ * int     version
+ * int     count of the templates
+ * count * (int name length, UTF-8 name, int offset, int length)
+ * UTF-8 content of the templates
+ * </pre>
+ */
+public final class BundleTemplateLoader extends AbstractTemplateLoader {
+
+  static final int MAGIC = 0x48425342;
+  static final int VERSION = 1;
+
+  private final ByteBuffer buffer;
+  private final String name;
+  private final Map<String, Entry> index;
+  private final long lastModified;
+
+  /**
+   * Parse the bundle index. The buffer must not be modified after.
+   *
+   * @param buffer
+   *  Bundle content.
+   * @param name
+   *  Name of the bundle, the template file names start with it. The engine
+   *  caches the templates by the file name, so the bundles must differ.
+   * @param extension
+   *  Extension of the template files.
+   * @param lastModified
+   *  Time of the bundle creation, used as the last modified time of all templates.
+   * @throws IOException
+   *  In the case of the broken bundle.
+   */
+  public BundleTemplateLoader(final ByteBuffer buffer, final String name, final String extension,
+      final long lastModified) throws IOException {
+    this.buffer = buffer;
+    this.name = name;
+    this.lastModified = lastModified;
+    this.index = readIndex(buffer.duplicate());
+    setSuffix(extension);
+  }
+
+  /**
+   * Map the bundle file in to the memory.
+   *
+   * @param bundle
+   *  The bundle file.
+   * @param extension
+   *  Extension of the template files.
+   * @return
+   *  Loader of the bundle.
+   * @throws IOException
+   *  In the case of unable to read the bundle.
+   */
+  public static BundleTemplateLoader fromFile(final File bundle, final String extension) throws IOException {
+    return map(bundle.toPath(), bundle.getPath(), extension, bundle.lastModified());
+  }
+
+  /**
+   * Read the bundle from the stream, i.e. from the classpath or jar. The
+   * stream is copied to a temporary file that is mapped in to the memory.
+   *
+   * @param stream
+   *  The bundle stream, it will be closed.
+   * @param name
+   *  Name of the bundle, like the resource name.
+   * @param extension
+   *  Extension of the template files.
+   * @return
+   *  Loader of the bundle.
+   * @throws IOException
+   *  In the case of unable to read the bundle.
+   */
+  public static BundleTemplateLoader fromStream(final InputStream stream, final String name,
+      final String extension) throws IOException {
+    final Path copy = Files.createTempFile("handlebars", ".bundle");
+    try (InputStream input = stream) {
+      Files.copy(input, copy, StandardCopyOption.REPLACE_EXISTING);
+      return map(copy, name, extension, 0L);
+    } finally {
+      try {
+        // The mapping stays valid, but not every system lets delete the mapped file.
+        Files.delete(copy);
+      } catch (IOException e) {
+        copy.toFile().deleteOnExit();
+      }
+    }
+  }
+
+  private static BundleTemplateLoader map(final Path bundle, final String name, final String extension,
+      final long lastModified) throws IOException {
+    try (FileChannel channel = FileChannel.open(bundle, StandardOpenOption.READ)) {
+      // Mapping stays valid after the channel is closed.
+      final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new BundleTemplateLoader(buffer, name, extension, lastModified);
+    }
+  }
+
+  @Override
+  public TemplateSource sourceAt(final String location) throws IOException {
+    final String path = resolve(location);
+    final Entry entry = index.get(normalize(path));
+    if (entry == null) {
+      throw new FileNotFoundException(path);
+    }
+    return new BundleTemplateSource(name + path, entry);
+  }
+
+  /**
+   * @return names of all templates in the bundle, with the extension.
+   */
+  public Iterable<String> names() {
+    return index.keySet();
+  }
+
+  private static Map<String, Entry> readIndex(final ByteBuffer buffer) throws IOException {
+    if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+      throw new IOException("Not a handlebars templates bundle");
+    }
+    final int version = buffer.getInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported bundle version " + version);
+    }
+
+    final int count = buffer.getInt();
+    final Map<String, Entry> index = new HashMap<>(count * 4 / 3 + 1);
+    for (int i = 0; i < count; i++) {
+      final byte[] name = new byte[buffer.getInt()];
+      buffer.get(name);
+      final int offset = buffer.getInt();
+      final int length = buffer.getInt();
+      // Compared without the sum, it could overflow.
+      if (offset < 0 || length < 0 || length > buffer.limit() - offset) {
+        throw new IOException("Broken bundle entry " + i);
+      }
+      index.put(new String(name, StandardCharsets.UTF_8), new Entry(offset, length));
+    }
+    return index;
+  }
+
+  /**
+   * Position of the template in the bundle.
+   */
+  private static final class Entry {
+    final int offset;
+    final int length;
+
+    Entry(final int offset, final int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /**
+   * Template source that decode content from the bundle on demand.
+   */
+  private final class BundleTemplateSource extends AbstractTemplateSource {
+    private final String filename;
+    private final Entry entry;
+
+    BundleTemplateSource(final String filename, final Entry entry) {
+      this.filename = filename;
+      this.entry = entry;
+    }
+
+    @Override
+    public String content() {
+      // The duplicate has own position, so the shared buffer is never touched.
+      final ByteBuffer slice = buffer.duplicate();
+      slice.position(entry.offset);
+      slice.limit(entry.offset + entry.length);
+      return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    @Override
+    public String filename() {
+      return filename;
+    }
+
+    @Override
+    public long lastModified() {
+      return lastModified;
+    }
+  }
+}
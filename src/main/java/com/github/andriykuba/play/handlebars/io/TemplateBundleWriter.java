@@ -0,0 +1,105 @@
+package com.github.andriykuba.play.handlebars.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Pack the templates folder in to one bundle file, readable by the
+ * {@link BundleTemplateLoader}.
+ *
+ * It is supposed to be called at the packaging time, for example from sbt:
+ * {@code runMain com.github.andriykuba.play.handlebars.io.TemplateBundleWriter templates .hbs conf/templates.bundle}
+ */
+public final class TemplateBundleWriter {
+
+  private TemplateBundleWriter() {}
+
+  /**
+   * Write all templates with the given extension from the directory and its
+   * sub directories in to the bundle.
+   *
+   * @param directory
+   *  Root folder of the templates.
+   * @param extension
+   *  Extension of the template files.
+   * @param bundle
+   *  The bundle file to write.
+   * @throws IOException
+   *  In the case of unable to read templates or write the bundle.
+   */
+  public static void write(final File directory, final String extension, final File bundle)
+      throws IOException {
+    final Path root = directory.toPath();
+
+    final List<Path> files;
+    try (Stream<Path> walk = Files.walk(root)) {
+      files = walk
+          .filter(Files::isRegularFile)
+          .filter(path -> path.getFileName().toString().endsWith(extension))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+
+    // Names are relative to the root and always use the slash.
+    final List<byte[]> names = new ArrayList<>(files.size());
+    int headerSize = 12;
+    for (Path file : files) {
+      final String name = root.relativize(file).toString().replace(File.separatorChar, '/');
+      final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      names.add(bytes);
+      headerSize += 12 + bytes.length;
+    }
+
+    final List<byte[]> contents = new ArrayList<>(files.size());
+    for (Path file : files) {
+      contents.add(Files.readAllBytes(file));
+    }
+
+    try (DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(bundle)))) {
+      output.writeInt(BundleTemplateLoader.MAGIC);
+      output.writeInt(BundleTemplateLoader.VERSION);
+      output.writeInt(files.size());
+
+      int offset = headerSize;
+      for (int i = 0; i < files.size(); i++) {
+        final byte[] name = names.get(i);
+        output.writeInt(name.length);
+        output.write(name);
+        output.writeInt(offset);
+        output.writeInt(contents.get(i).length);
+        offset += contents.get(i).length;
+      }
+
+      for (byte[] content : contents) {
+        output.write(content);
+      }
+    }
+  }
+
+  /**
+   * Command line entry point.
+   *
+   * @param args
+   *  templates directory, templates extension, bundle file.
+   * @throws IOException
+   *  In the case of unable to write the bundle.
+   */
+  public static void main(final String[] args) throws IOException {
+    if (args.length != 3) {
+      throw new IllegalArgumentException(
+          "Usage: TemplateBundleWriter <templates directory> <extension> <bundle file>");
+    }
+    write(new File(args[0]), args[1], new File(args[2]));
+  }
+}
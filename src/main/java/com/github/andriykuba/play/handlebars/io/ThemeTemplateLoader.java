@@ -0,0 +1,160 @@
+package com.github.andriykuba.play.handlebars.io;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.github.jknack.handlebars.io.TemplateLoader;
+import com.github.jknack.handlebars.io.TemplateSource;
+
+/**
+ * Template loader of the themes over one base set of templates.
+ *
+ * The template is looked up in the loader of the current theme first, then
+ * in the base loader, so a theme contains only the overridden templates. The
+ * current theme is bound to the thread by {@link #withTheme(String, Supplier)
+ * withTheme}. The partials are resolved through this loader at the render
+ * time, so they follow the current theme as well.
+ *
+ * The source of the base template is the same for all themes, so the
+ * compiled template is cached once, not once per theme. The templates that
+ * are not overridden by the theme could be remembered, so the theme loader
+ * is not asked for them on every partial call.
+ */
+public final class ThemeTemplateLoader implements TemplateLoader {
+
+  private final TemplateLoader base;
+  private final Map<String, TemplateLoader> themes;
+
+  /**
+   * Locations that are not overridden, by the theme name. Null if they are
+   * not remembered.
+   */
+  private final Map<String, Set<String>> notOverridden;
+
+  private final ThreadLocal<String> current = new ThreadLocal<>();
+
+  /**
+   * @param base
+   *  Loader of the base templates.
+   * @param themes
+   *  Loaders of the theme templates by the theme name.
+   * @param rememberNotOverridden
+   *  Do not look up the template in the theme again if it was not found
+   *  once. The theme templates must not be added at runtime then.
+   */
+  public ThemeTemplateLoader(
+      final TemplateLoader base,
+      final Map<String, TemplateLoader> themes,
+      final boolean rememberNotOverridden) {
+    this.base = base;
+    this.themes = Collections.unmodifiableMap(new HashMap<>(themes));
+
+    if (rememberNotOverridden) {
+      notOverridden = new HashMap<>();
+      for (String theme : themes.keySet()) {
+        notOverridden.put(theme, ConcurrentHashMap.newKeySet());
+      }
+    } else {
+      notOverridden = null;
+    }
+  }
+
+  /**
+   * @return the theme names.
+   */
+  public Set<String> getThemes() {
+    return themes.keySet();
+  }
+
+  /**
+   * Run the action with the theme bound to the current thread.
+   *
+   * @param theme
+   *  The theme name, null for the base templates.
+   * @param action
+   *  Action that renders the templates.
+   * @param <T>
+   *  The result type.
+   * @return the result of the action.
+   */
+  public <T> T withTheme(final String theme, final Supplier<T> action) {
+    if (theme != null && !themes.containsKey(theme)) {
+      throw new IllegalArgumentException("Unknown theme \"" + theme + "\"");
+    }
+
+    final String previous = current.get();
+    current.set(theme);
+    try {
+      return action.get();
+    } finally {
+      if (previous == null) {
+        current.remove();
+      } else {
+        current.set(previous);
+      }
+    }
+  }
+
+  /**
+   * @return the theme of the current thread, null for the base templates.
+   */
+  public String currentTheme() {
+    return current.get();
+  }
+
+  @Override
+  public TemplateSource sourceAt(final String location) throws IOException {
+    final String theme = current.get();
+    if (theme != null) {
+      final Set<String> missing = (notOverridden == null) ? null : notOverridden.get(theme);
+      if (missing == null || !missing.contains(location)) {
+        try {
+          return themes.get(theme).sourceAt(location);
+        } catch (FileNotFoundException e) {
+          // Not overridden by the theme.
+          if (missing != null) {
+            missing.add(location);
+          }
+        }
+      }
+    }
+    return base.sourceAt(location);
+  }
+
+  @Override
+  public String resolve(final String location) {
+    return base.resolve(location);
+  }
+
+  @Override
+  public String getPrefix() {
+    return base.getPrefix();
+  }
+
+  @Override
+  public String getSuffix() {
+    return base.getSuffix();
+  }
+
+  @Override
+  public void setPrefix(final String prefix) {
+    base.setPrefix(prefix);
+    for (TemplateLoader theme : themes.values()) {
+      theme.setPrefix(prefix);
+    }
+  }
+
+  @Override
+  public void setSuffix(final String suffix) {
+    base.setSuffix(suffix);
+    for (TemplateLoader theme : themes.values()) {
+      theme.setSuffix(suffix);
+    }
+  }
+}
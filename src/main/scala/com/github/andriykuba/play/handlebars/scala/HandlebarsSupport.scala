@@ -26,6 +26,9 @@ trait HandlebarsSupport {
    * Add flash messages to the root "flash" property:
    * 
    * "{"flash":{"success":"The user has been created"}}
+   * 
+   * Flash messages win over the "flash" property of the data, the other
+   * properties of it are kept. Only the top level of the data is copied.
    */
   def render(templateId: String, 
              jsonData:JsObject)
@@ -38,13 +41,12 @@ trait HandlebarsSupport {
     if(flash.isEmpty){
       handlebarsApi.html(templateId, jsonData, lang.code)
     }else{
-      val flashJson = Json.obj(
-        "flash" -> (Json.obj() /: flash.data){(j, e) =>{
+      val dataFlash = (jsonData \ "flash").asOpt[JsObject].getOrElse(Json.obj())
+      val flashJson = (dataFlash /: flash.data){(j, e) =>{
           j + (e._1 -> Json.toJson(e._2))
-        }})
-      val data = jsonData.deepMerge(flashJson)  
+        }}
       
-      handlebarsApi.html(templateId, data, lang.code)  
+      handlebarsApi.html(templateId, jsonData + ("flash" -> flashJson), lang.code)  
     }
   }
   
@@ -0,0 +1,85 @@
+package com.github.andriykuba.play.handlebars;
+
+import static com.github.andriykuba.play.handlebars.HandlebarsFixture.LANGUAGE_CODE;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class CacheSnapshotTest {
+	@Rule
+	public HandlebarsFixture fixture = new HandlebarsFixture();
+
+	@Test
+	public void cacheSnapshotRoundTrip() throws Exception {
+		fixture.template("page", "{{title}}");
+		fixture.template("item", "{{title}}");
+		HandlebarsApi api = fixture.api();
+		
+		api.countCacheHits();
+		api.render("page", ImmutableMap.of("title", "a"), LANGUAGE_CODE);
+		api.render("page", ImmutableMap.of("title", "b"), LANGUAGE_CODE);
+		api.render("item", ImmutableMap.of("title", "c"), LANGUAGE_CODE);
+		
+		File file = new File(fixture.root(), "handlebars.snapshot");
+		api.cacheSnapshot().write(file);
+		
+		CacheSnapshot snapshot = CacheSnapshot.read(file);
+		assertEquals(Arrays.asList("page", "item"), new ArrayList<>(snapshot.getTemplates().keySet()));
+		assertEquals(Long.valueOf(2), snapshot.getTemplates().get("page"));
+		
+		Map<String, Long> templates = new HashMap<>(snapshot.getTemplates());
+		templates.put("removed", 1L);
+		assertEquals(1, api.warmUp(new CacheSnapshot(templates, snapshot.getRoutes(), snapshot.getAssets())));
+	}
+
+	@Test
+	public void themeTemplatesCountedApart() throws Exception {
+		fixture.template("page", "base");
+		fixture.write("themes/brand/page.hbs", "brand");
+		HandlebarsApi api = fixture.api("handlebars.themes { brand = \"/themes/brand\" }");
+		
+		api.countCacheHits();
+		api.render("page", ImmutableMap.of(), LANGUAGE_CODE);
+		api.withTheme("brand", () -> api.render("page", ImmutableMap.of(), LANGUAGE_CODE));
+		api.withTheme("brand", () -> api.render("page", ImmutableMap.of(), LANGUAGE_CODE));
+		
+		Map<String, Long> templates = api.cacheSnapshot().getTemplates();
+		assertEquals(ImmutableMap.of("brand:page", 2L, "page", 1L), templates);
+		assertEquals(0, api.warmUp(api.cacheSnapshot()));
+	}
+
+	@Test
+	public void keysEscapedInFile() throws Exception {
+		Map<String, Long> routes = ImmutableMap.of("a\tb\nc\\d\re", 3L, "plain", 1L);
+		File file = new File(fixture.root(), "handlebars.snapshot");
+		new CacheSnapshot(ImmutableMap.of(), routes, ImmutableMap.of()).write(file);
+		
+		assertEquals(3, Files.readAllLines(file.toPath()).size());
+		assertEquals(routes, CacheSnapshot.read(file).getRoutes());
+	}
+
+	@Test
+	public void hitCounterDecaysWhenFull() {
+		HitCounter counter = new HitCounter(3);
+		for (int i = 0; i < 4; i++) {
+			counter.hit("hot");
+		}
+		counter.hit("once");
+		counter.hit("twice");
+		counter.hit("twice");
+		
+		// The new key halves the counts, the single hit is dropped.
+		counter.hit("new");
+		assertEquals(ImmutableMap.of("hot", 2L, "twice", 1L, "new", 1L), counter.top(10));
+	}
+}
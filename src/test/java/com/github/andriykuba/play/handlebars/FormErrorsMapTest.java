@@ -0,0 +1,71 @@
+package com.github.andriykuba.play.handlebars;
+
+import static com.github.andriykuba.play.handlebars.HandlebarsFixture.LANGUAGE_CODE;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.ImmutableMap;
+
+import play.data.Form;
+import play.data.validation.ValidationError;
+
+public class FormErrorsMapTest {
+	@Rule
+	public HandlebarsFixture fixture = new HandlebarsFixture();
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void formErrorsView(){
+		Form<Object> form = Mockito.mock(Form.class);
+		Map<String, List<ValidationError>> errors = ImmutableMap.of(
+				"login", Arrays.asList(new ValidationError("login", "error.required")),
+				"", Arrays.asList(new ValidationError("", "error.unavailable")));
+		Mockito.when(form.errors()).thenReturn(errors);
+		Mockito.when(form.allErrors()).thenReturn(Arrays.asList(errors.get("login").get(0), errors.get("").get(0)));
+		Mockito.when(form.errors("login")).thenReturn(errors.get("login"));
+		Mockito.when(form.getGlobalError()).thenReturn(Optional.of(errors.get("").get(0)));
+		Form.Field login = Mockito.mock(Form.Field.class);
+		Mockito.when(login.getValue()).thenReturn(Optional.of("andriy"));
+		Mockito.when(form.field("login")).thenReturn(login);
+		
+		String template = "{{errors.login.error}} {{errors.password.error}} {{errors.error}}";
+		String expected = "forms.login.login.error.required  forms.login.error.unavailable";
+		
+		Map<String, Object> view = ImmutableMap.of("errors", HandlebarsTools.getErrorsAsView(form, "login"));
+		Map<String, Object> map = ImmutableMap.of("errors", HandlebarsTools.getErrorsAsMap(form, "login"));
+		
+		HandlebarsApi api = fixture.api();
+		assertEquals(expected, api.renderInline(template, view, LANGUAGE_CODE));
+		assertEquals(expected, api.renderInline(template, map, LANGUAGE_CODE));
+		assertEquals("login error", api.renderInline("{{#each errors}}{{@key}} {{/each}}", view, LANGUAGE_CODE).trim());
+		
+		// The submitted value is in both of them, only if there is one.
+		String values = "{{errors.login.value}}{{#each errors.login}} {{@key}}{{/each}}";
+		assertEquals("andriy error value", sorted(api.renderInline(values, view, LANGUAGE_CODE)));
+		assertEquals("andriy error value", sorted(api.renderInline(values, map, LANGUAGE_CODE)));
+		
+		Mockito.when(login.getValue()).thenReturn(Optional.empty());
+		view = ImmutableMap.of("errors", HandlebarsTools.getErrorsAsView(form, "login"));
+		map = ImmutableMap.of("errors", HandlebarsTools.getErrorsAsMap(form, "login"));
+		assertEquals(" error", api.renderInline(values, view, LANGUAGE_CODE));
+		assertEquals(" error", api.renderInline(values, map, LANGUAGE_CODE));
+		assertEquals(false, ((Map<?, ?>) HandlebarsTools.getErrorsAsView(form, "login").get("login")).containsKey("value"));
+	}
+
+	/**
+	 * The field maps are not ordered.
+	 */
+	private static String sorted(final String words) {
+		String[] parts = words.split(" ");
+		Arrays.sort(parts, 1, parts.length);
+		return String.join(" ", parts);
+	}
+}
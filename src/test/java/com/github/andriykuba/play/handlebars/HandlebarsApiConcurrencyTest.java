@@ -0,0 +1,225 @@
+package com.github.andriykuba.play.handlebars;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.github.jknack.handlebars.io.AbstractTemplateLoader;
+import com.github.jknack.handlebars.io.StringTemplateSource;
+import com.github.jknack.handlebars.io.TemplateSource;
+import com.typesafe.config.ConfigFactory;
+
+import play.Environment;
+import play.api.libs.json.JsValue;
+import play.api.libs.json.Json;
+import play.i18n.MessagesApi;
+import controllers.AssetsFinder;
+
+/**
+ * Renders the realistic page from many threads at once: the template cache,
+ * the route and asset caches of the helpers and the Play JSON resolver are
+ * shared by all of them.
+ */
+public class HandlebarsApiConcurrencyTest {
+	private final static String LANGUAGE_CODE = "en";
+
+	private final static int THREADS = 8;
+	private final static int RENDERS_PER_THREAD = 300;
+	private final static int ITEMS = 20;
+
+	/**
+	 * Bytes allocated by one render of the page. It was about 235 KB on JDK 8,
+	 * the budget is twice as much, the allocation differs by the JDK and JIT.
+	 */
+	private final static long ALLOCATION_BUDGET = 512 * 1024;
+
+	/**
+	 * How much more a render could allocate under the contention than the
+	 * single-threaded render in the same JVM.
+	 */
+	private final static int CONTENTION_ALLOCATION_FACTOR = 2;
+
+	private final static String ROUTES = "com.github.andriykuba.play.handlebars.fixtures";
+
+	private final static Map<String, TemplateSource> TEMPLATES = new HashMap<>();
+	static {
+		TEMPLATES.put("page", new StringTemplateSource("page",
+				"<html><head><link href=\"{{asset \"css/main.css\"}}\"></head><body>"
+				+ "{{> header}}"
+				+ "<ul>{{#each items}}"
+				+ "<li><a href=\"{{route \"" + ROUTES + ".Items.show(id)\"}}\">{{name}}</a> {{message \"item.price\" price}}</li>"
+				+ "{{/each}}</ul>"
+				+ "<a href=\"{{route \"" + ROUTES + ".Items.list\"}}\">{{if_equals user.role \"admin\" \"Admin\"}}</a>"
+				+ "</body></html>"));
+		TEMPLATES.put("header", new StringTemplateSource("header",
+				"<h1>{{title}}</h1><p>{{concat \"Hello, \" user.name}}</p>"));
+	}
+
+	private HandlebarsApi api;
+	private ExecutorService executor;
+
+	@Before
+	public void initHandlebars() {
+		Environment environment = Mockito.mock(Environment.class);
+		Mockito.when(environment.classLoader()).thenReturn(getClass().getClassLoader());
+
+		AssetsFinder assetsFinder = Mockito.mock(AssetsFinder.class);
+		Mockito.when(assetsFinder.path(Mockito.anyString()))
+				.thenAnswer(invocation -> "/assets/" + invocation.getArguments()[0]);
+
+		// Stub only, the mock does not keep the invocations of the renders.
+		MessagesApi messagesApi = Mockito.mock(MessagesApi.class, Mockito.withSettings().stubOnly()
+				.defaultAnswer(invocation -> invocation.getArguments()[1] + ":" + invocation.getArguments()[2]));
+
+		api = new HandlebarsApi(environment, ConfigFactory.load(), messagesApi, assetsFinder);
+		api.getHandlebars().with(new AbstractTemplateLoader() {
+			@Override
+			public TemplateSource sourceAt(String location) {
+				return TEMPLATES.get(location);
+			}
+		});
+
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void sameOutputUnderContention() throws Exception {
+		final com.sun.management.ThreadMXBean threads = allocationCounters();
+
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Future<Long>> results = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			final int thread = t;
+			results.add(executor.submit((Callable<Long>) () -> {
+				start.await();
+				final long threadId = Thread.currentThread().getId();
+				long allocated = 0;
+				for (int i = 0; i < RENDERS_PER_THREAD; i++) {
+					final int user = thread * RENDERS_PER_THREAD + i;
+					final JsValue page = data(user);
+
+					// Only the render is measured, not the data and the expected page.
+					final long before = (threads == null) ? 0 : threads.getThreadAllocatedBytes(threadId);
+					final String html = api.render("page", page, LANGUAGE_CODE);
+					allocated += (threads == null) ? 0 : threads.getThreadAllocatedBytes(threadId) - before;
+
+					assertEquals(expected(user), html);
+				}
+				return allocated / RENDERS_PER_THREAD;
+			}));
+		}
+
+		start.countDown();
+		final List<Long> bytesPerRender = new ArrayList<>();
+		for (Future<Long> result : results) {
+			bytesPerRender.add(result.get());
+		}
+		assertEquals(THREADS, bytesPerRender.size());
+
+		if (threads != null) {
+			final long baseline = allocatedPerRender(threads);
+			for (long bytes : bytesPerRender) {
+				assertTrue("Allocated " + bytes + " bytes per render under the contention, " + baseline + " alone",
+						bytes <= CONTENTION_ALLOCATION_FACTOR * baseline);
+			}
+		}
+	}
+
+	@Test
+	public void allocationBudgetPerRender() throws Exception {
+		final com.sun.management.ThreadMXBean threads = allocationCounters();
+		Assume.assumeNotNull(threads);
+
+		final long bytesPerRender = allocatedPerRender(threads);
+		assertTrue("Allocated " + bytesPerRender + " bytes per render, the budget is " + ALLOCATION_BUDGET,
+				bytesPerRender <= ALLOCATION_BUDGET);
+	}
+
+	/**
+	 * @return the allocation counters of the threads, null if the JVM does not
+	 *         count the allocations.
+	 */
+	private static com.sun.management.ThreadMXBean allocationCounters() {
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return null;
+		}
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		return (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) ? threads : null;
+	}
+
+	/**
+	 * Bytes allocated by one render in the current thread, after the warm-up.
+	 */
+	private long allocatedPerRender(final com.sun.management.ThreadMXBean threads) {
+		// The data is prepared in advance, only the render is measured.
+		final List<JsValue> data = new ArrayList<>();
+		for (int i = 0; i < RENDERS_PER_THREAD; i++) {
+			data.add(data(i));
+		}
+
+		// Fill the caches and warm up the code.
+		for (JsValue page : data) {
+			api.render("page", page, LANGUAGE_CODE);
+		}
+
+		final long threadId = Thread.currentThread().getId();
+		final long before = threads.getThreadAllocatedBytes(threadId);
+		for (JsValue page : data) {
+			api.render("page", page, LANGUAGE_CODE);
+		}
+		return (threads.getThreadAllocatedBytes(threadId) - before) / data.size();
+	}
+
+	private static JsValue data(final int user) {
+		final StringBuilder items = new StringBuilder();
+		for (int i = 0; i < ITEMS; i++) {
+			if (i > 0) {
+				items.append(',');
+			}
+			items.append("{\"id\":").append(user + i)
+					.append(",\"name\":\"Item ").append(i)
+					.append("\",\"price\":").append(i * 10).append('}');
+		}
+
+		return Json.parse("{\"title\":\"Items\","
+				+ "\"user\":{\"name\":\"User " + user + "\",\"role\":\"" + (user % 2 == 0 ? "admin" : "user") + "\"},"
+				+ "\"items\":[" + items + "]}");
+	}
+
+	private static String expected(final int user) {
+		final StringBuilder page = new StringBuilder()
+				.append("<html><head><link href=\"/assets/css/main.css\"></head><body>")
+				.append("<h1>Items</h1><p>Hello, User ").append(user).append("</p>")
+				.append("<ul>");
+		for (int i = 0; i < ITEMS; i++) {
+			page.append("<li><a href=\"/items/").append(user + i).append("\">Item ").append(i)
+					.append("</a> item.price:").append(i * 10).append("</li>");
+		}
+		return page.append("</ul>")
+				.append("<a href=\"/items\">").append(user % 2 == 0 ? "Admin" : "").append("</a>")
+				.append("</body></html>")
+				.toString();
+	}
+}
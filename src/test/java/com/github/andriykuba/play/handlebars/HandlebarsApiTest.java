@@ -1,39 +1,47 @@
 package com.github.andriykuba.play.handlebars;
 
+import static com.github.andriykuba.play.handlebars.HandlebarsFixture.LANGUAGE_CODE;
 import static org.junit.Assert.assertEquals;
 
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
-import org.mockito.Mockito;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.jknack.handlebars.Options;
+import com.github.jknack.handlebars.io.AbstractTemplateLoader;
+import com.github.jknack.handlebars.io.StringTemplateSource;
+import com.github.jknack.handlebars.io.TemplateSource;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 
-import com.typesafe.config.Config;
-import com.typesafe.config.ConfigFactory;
-
-import play.Environment;
 import play.api.libs.json.JsValue;
 import play.api.libs.json.Json;
-import play.i18n.MessagesApi;
-import controllers.AssetsFinder;
 
 public class HandlebarsApiTest {
+	@Rule
+	public HandlebarsFixture fixture = new HandlebarsFixture();
+	
 	private HandlebarsApi api;
-	private final static String LANGUAGE_CODE = "da";
 	@Before
 	public void initHandlebars(){
-		Config config = ConfigFactory.load();
-		MessagesApi messagesApi = Mockito.mock(MessagesApi.class);
-		AssetsFinder assetsFinder = Mockito.mock(AssetsFinder.class);
-    Environment environment = Mockito.mock(Environment.class);
-		    
-		api = new HandlebarsApi(environment, config, messagesApi, assetsFinder);
+		api = fixture.api();
 	}
 	
 	@Test
@@ -117,4 +125,168 @@ public class HandlebarsApiTest {
 		String result = api.renderInline(template, data, LANGUAGE_CODE);
 		assertEquals("", result);
 	}
+	
+	@Test
+	public void layersResolvedThroughParents(){
+		String template = "{{title}} {{flash.success}} {{user.name}} {{#each items}}{{this}}{{flash.success}}{{/each}} {{@root.title}}";
+		
+		JsValue data = Json.parse("{\"title\":\"Page\", \"items\":[1,2]}");
+		JsValue flash = Json.parse("{\"flash\":{\"success\":\"!\"}}");
+		Map<String, Object> session = ImmutableMap.of("user", ImmutableMap.of("name", "Petro"), "title", "Session");
+		
+		String result = api.renderInline(template, data, Arrays.asList(flash, session), LANGUAGE_CODE);
+		assertEquals("Page ! Petro 1!2! Page", result);
+	}
+	
+	@Test
+	public void globalDataIsRootLayer(){
+		api.setGlobalData(ImmutableMap.of("site", "Site", "title", "Global"));
+		String template = "{{site}} {{title}} {{flash.success}}";
+		
+		Map<String, Object> data = ImmutableMap.of("title", "Page");
+		Map<String, Object> flash = ImmutableMap.of("flash", ImmutableMap.of("success", "!"));
+		
+		assertEquals("Site Page ", api.renderInline(template, data, LANGUAGE_CODE));
+		assertEquals("Site Page !", api.renderInline(template, data, Arrays.asList(flash), LANGUAGE_CODE));
+	}
+	
+	@Test
+	public void globalDataProvider(){
+		AtomicInteger calls = new AtomicInteger();
+		api.setGlobalDataProvider(() -> ImmutableMap.of("calls", calls.incrementAndGet()), 1, TimeUnit.HOURS);
+		
+		api.renderInline("{{calls}}", null, LANGUAGE_CODE);
+		assertEquals("1", api.renderInline("{{calls}}", null, LANGUAGE_CODE));
+	}
+	
+	@Test
+	public void globalDataKeptWhenRefreshFails() throws InterruptedException{
+		AtomicInteger calls = new AtomicInteger();
+		api.setGlobalDataProvider(() -> {
+			if (calls.incrementAndGet() > 1) {
+				throw new IllegalStateException("Refresh failed");
+			}
+			return ImmutableMap.of("site", "Site");
+		}, 1, TimeUnit.MILLISECONDS);
+		
+		while (calls.get() < 3) {
+			Thread.sleep(1);
+		}
+		assertEquals("Site", api.renderInline("{{site}}", null, LANGUAGE_CODE));
+		api.setGlobalData(null);
+	}
+	
+	@Test
+	public void globalDataContextNotShared(){
+		api.setGlobalData(ImmutableMap.of("site", "Site"));
+		
+		assertEquals("Site A", api.renderInline("{{#*inline \"p\"}}A{{/inline}}{{site}} {{> p}}", null, LANGUAGE_CODE));
+		assertEquals("Site B", api.renderInline("{{#*inline \"p\"}}B{{/inline}}{{site}} {{> p}}", null, LANGUAGE_CODE));
+		assertEquals("Site 1", api.renderInline("{{site}} {{@root.id}}", ImmutableMap.of("id", 1), LANGUAGE_CODE));
+	}
+	
+	@Test
+	public void renderAllKeepsOrder(){
+		List<Object> data = new ArrayList<>();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			data.add(ImmutableMap.of("id", i));
+			expected.append("<p>").append(i).append("</p>");
+		}
+		
+		api.getHandlebars().with(new AbstractTemplateLoader() {
+			@Override
+			public TemplateSource sourceAt(String location) {
+				return new StringTemplateSource(location, "<p>{{id}}</p>");
+			}
+		});
+		
+		StringBuilder result = new StringBuilder();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			api.renderAll("item", data, LANGUAGE_CODE, executor, result::append);
+		} finally {
+			executor.shutdown();
+		}
+		
+		assertEquals(expected.toString(), result.toString());
+	}
+	
+	@Test
+	public void renderToWriter() throws Exception {
+		fixture.template("export", "{{#each rows}}{{this}};{{/each}}");
+		HandlebarsApi exportApi = fixture.api();
+		
+		StringWriter out = new StringWriter();
+		exportApi.render("export", ImmutableMap.of("rows", IntStream.range(0, 3).boxed()), LANGUAGE_CODE, out);
+		assertEquals("0;1;2;", out.toString());
+	}
+	
+	@Test
+	public void renderAsyncWaitsForSections(){
+		api.getHandlebars().with(new AbstractTemplateLoader() {
+			@Override
+			public TemplateSource sourceAt(String location) {
+				return new StringTemplateSource(location, "{{title}}{{#if false}}{{broken}}{{/if}}");
+			}
+		});
+		
+		CompletableFuture<String> title = new CompletableFuture<>();
+		CompletableFuture<String> broken = new CompletableFuture<>();
+		Map<String, Object> data = new HashMap<>();
+		data.put("title", title);
+		data.put("broken", broken);
+		
+		CompletableFuture<String> result = api.renderAsync("page", data, LANGUAGE_CODE).toCompletableFuture();
+		broken.completeExceptionally(new IllegalStateException("not used"));
+		assertEquals(false, result.isDone());
+		
+		title.complete("Title");
+		assertEquals("Title", result.join());
+	}
+	
+	@Test
+	public void applicationHelper(){
+		api.registerHelper("upper", (String context, Options options) -> context.toUpperCase());
+		String result = api.renderInline("{{upper name}} {{concat \"a\" 1 true}} {{encodeUrlParameter q}}", 
+				ImmutableMap.of("name", "hbs", "q", "a b"), LANGUAGE_CODE);
+		assertEquals("HBS a1true a+b", result);
+	}
+	
+	@Test
+	public void layoutWithSlots(){
+		Map<String, String> templates = new HashMap<>();
+		templates.put("layout", "<html><head>{{> head}}</head><body>{{> body}}</body></html>");
+		templates.put("body", "not the page");
+		templates.put("page", "<h1>{{title}}</h1>{{#each items}}<p>{{this}}</p>{{/each}}");
+		templates.put("pageHead", "<title>{{title}}</title>");
+		api.getHandlebars().with(new AbstractTemplateLoader() {
+			@Override
+			public TemplateSource sourceAt(String location) {
+				return new StringTemplateSource(location, templates.get(location));
+			}
+		});
+		
+		Map<String, Object> data = ImmutableMap.of("title", "Title", "items", Arrays.asList(1, 2));
+		
+		Map<String, String> slots = ImmutableMap.of(HandlebarsApi.LAYOUT_BODY, "page", "head", "pageHead");
+		String result = api.renderLayout("layout", slots, data, Collections.emptyList(), LANGUAGE_CODE);
+		assertEquals("<html><head><title>Title</title></head><body><h1>Title</h1><p>1</p><p>2</p></body></html>", result);
+		
+		templates.put("main", "<main>{{> body}}</main>");
+		String page = api.html("main", "page", data, LANGUAGE_CODE).body();
+		assertEquals("<main><h1>Title</h1><p>1</p><p>2</p></main>", page);
+	}
+	
+	@Test
+	public void outputSizeEstimated() throws Exception {
+		Map<String, Object> data = ImmutableMap.of("text", Strings.repeat("a", 4000));
+		String template = "[{{text}}]";
+		
+		api.renderInline(template, data, LANGUAGE_CODE);
+		assertEquals(Collections.singletonList(4002), new ArrayList<>(api.getOutputSizeEstimates().values()));
+		
+		api.renderInline(template, ImmutableMap.of("text", ""), LANGUAGE_CODE);
+		assertEquals(Collections.singletonList(4002 - 4000 / 4), new ArrayList<>(api.getOutputSizeEstimates().values()));
+	}
 }
@@ -0,0 +1,113 @@
+package com.github.andriykuba.play.handlebars;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.rules.ExternalResource;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import com.typesafe.config.ConfigFactory;
+
+import play.Environment;
+import play.i18n.MessagesApi;
+import controllers.AssetsFinder;
+
+/**
+ * The application folder with the templates and the engine over it.
+ *
+ * The paths of the mocked {@link Environment} are resolved against the
+ * temporary folder, the configuration is the given one over the default.
+ */
+public class HandlebarsFixture extends ExternalResource {
+	public final static String LANGUAGE_CODE = "da";
+
+	private final TemporaryFolder folder = new TemporaryFolder();
+
+	@Override
+	protected void before() throws Throwable {
+		folder.create();
+		folder.newFolder("templates");
+	}
+
+	@Override
+	protected void after() {
+		folder.delete();
+	}
+
+	/**
+	 * @return the application folder.
+	 */
+	public File root() {
+		return folder.getRoot();
+	}
+
+	/**
+	 * Write the file, the folders are created.
+	 *
+	 * @param path
+	 *            Path relative to the application folder, like
+	 *            "templates/page.hbs".
+	 * @param content
+	 *            Content of the file.
+	 * @return the file.
+	 * @throws IOException
+	 *             If the file could not be written.
+	 */
+	public File write(final String path, final String content) throws IOException {
+		final File file = new File(root(), path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	/**
+	 * Write the template to the default templates folder.
+	 *
+	 * @param name
+	 *            Name of the template, without the extension.
+	 * @param content
+	 *            The template.
+	 * @return the file of the template.
+	 * @throws IOException
+	 *             If the file could not be written.
+	 */
+	public File template(final String name, final String content) throws IOException {
+		return write("templates/" + name + ".hbs", content);
+	}
+
+	/**
+	 * @return the engine with the default configuration.
+	 */
+	public HandlebarsApi api() {
+		return api("");
+	}
+
+	/**
+	 * @param config
+	 *            The configuration over the default one, like
+	 *            "handlebars.limits.maxEachIterations = 3".
+	 * @return the engine.
+	 */
+	public HandlebarsApi api(final String config) {
+		return api(config, Mockito.mock(AssetsFinder.class));
+	}
+
+	/**
+	 * @param config
+	 *            The configuration over the default one.
+	 * @param assetsFinder
+	 *            Finder of the assets.
+	 * @return the engine.
+	 */
+	public HandlebarsApi api(final String config, final AssetsFinder assetsFinder) {
+		final Environment environment = Mockito.mock(Environment.class);
+		Mockito.when(environment.getFile(Mockito.anyString()))
+				.thenAnswer(invocation -> new File(root(), invocation.getArguments()[0].toString()));
+		return new HandlebarsApi(environment,
+				ConfigFactory.parseString(config).withFallback(ConfigFactory.load()),
+				Mockito.mock(MessagesApi.class), assetsFinder);
+	}
+}
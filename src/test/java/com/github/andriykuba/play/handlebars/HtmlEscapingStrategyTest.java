@@ -0,0 +1,21 @@
+package com.github.andriykuba.play.handlebars;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.github.jknack.handlebars.EscapingStrategy;
+
+public class HtmlEscapingStrategyTest {
+
+	@Test
+	public void htmlEscapingAsTheEngine() {
+		String plain = "/items/list?page2";
+		assertSame(plain, HtmlEscapingStrategy.INSTANCE.escape(plain));
+		
+		String special = "<a href=\"/x?a=1&b='2'\">`</a>";
+		assertEquals(EscapingStrategy.HBS4.escape(special).toString(), 
+				HtmlEscapingStrategy.INSTANCE.escape(special).toString());
+	}
+}
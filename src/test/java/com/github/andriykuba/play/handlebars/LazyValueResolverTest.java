@@ -0,0 +1,67 @@
+package com.github.andriykuba.play.handlebars;
+
+import static com.github.andriykuba.play.handlebars.HandlebarsFixture.LANGUAGE_CODE;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class LazyValueResolverTest {
+	@Rule
+	public HandlebarsFixture fixture = new HandlebarsFixture();
+
+	@Test
+	public void lazyValuesResolvedOnRead(){
+		AtomicInteger calls = new AtomicInteger();
+		Map<String, Object> data = new HashMap<>();
+		data.put("shown", LazyValueResolver.lazy(() -> "a" + calls.incrementAndGet()));
+		data.put("hidden", LazyValueResolver.lazy(() -> "b" + calls.incrementAndGet()));
+		data.put("user", CompletableFuture.completedFuture(ImmutableMap.of("name", "Andriy")));
+		
+		String result = fixture.api().renderInline("{{shown}} {{user.name}}{{#if false}}{{hidden}}{{/if}}", data, LANGUAGE_CODE);
+		assertEquals("a1 Andriy", result);
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void lazyValueSuppliedOncePerRender(){
+		AtomicInteger calls = new AtomicInteger();
+		Map<String, Object> data = new HashMap<>();
+		data.put("s", LazyValueResolver.lazy(() -> {
+			calls.incrementAndGet();
+			return ImmutableMap.of("a", 1, "b", 2);
+		}));
+		
+		HandlebarsApi api = fixture.api();
+		String template = "{{#if s}}{{s.a}}{{s.b}}{{/if}}";
+		assertEquals("12", api.renderInline(template, data, LANGUAGE_CODE));
+		assertEquals(1, calls.get());
+		assertEquals("12", api.renderInline(template, data, LANGUAGE_CODE));
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void plainSupplierIsNotLazy(){
+		Map<String, Object> data = new HashMap<>();
+		data.put("user", new User());
+		
+		assertEquals("Andriy", fixture.api().renderInline("{{user.name}}", data, LANGUAGE_CODE));
+	}
+
+	public static class User implements Supplier<String> {
+		public String name = "Andriy";
+
+		@Override
+		public String get() {
+			return "supplied";
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.github.andriykuba.play.handlebars;
+
+import static com.github.andriykuba.play.handlebars.HandlebarsFixture.LANGUAGE_CODE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class RenderGuardTest {
+	@Rule
+	public HandlebarsFixture fixture = new HandlebarsFixture();
+
+	@Test
+	public void renderLimitsStopTheRender() throws Exception {
+		fixture.template("list", "{{#each items}}{{this}},{{/each}}");
+		fixture.template("text", "{{text}}");
+		fixture.template("map", "{{#each items}}{{#if @first}}[{{/if}}{{@key}}{{this}}{{#if @last}}]{{/if}}{{else}}-{{/each}}");
+		HandlebarsApi limitedApi = fixture.api("handlebars.limits { maxOutputChars = 10, maxEachIterations = 3 }");
+		
+		assertEquals("1,2,3,", limitedApi.render("list", ImmutableMap.of("items", Arrays.asList(1, 2, 3)), LANGUAGE_CODE));
+		assertEquals("0123456789", limitedApi.render("text", ImmutableMap.of("text", "0123456789"), LANGUAGE_CODE));
+		assertEquals("[a1b2c3]", limitedApi.render("map", 
+				ImmutableMap.of("items", ImmutableMap.of("a", 1, "b", 2, "c", 3)), LANGUAGE_CODE));
+		assertEquals("-", limitedApi.render("map", ImmutableMap.of("items", ImmutableMap.of()), LANGUAGE_CODE));
+		
+		try {
+			limitedApi.render("list", ImmutableMap.of("items", Arrays.asList(1, 2, 3, 4)), LANGUAGE_CODE);
+			fail();
+		} catch (RenderLimitExceededException e) {
+			assertEquals(RenderLimitExceededException.Limit.EACH_ITERATIONS, e.getLimit());
+		}
+		try {
+			limitedApi.render("map", 
+					ImmutableMap.of("items", ImmutableMap.of("a", 1, "b", 2, "c", 3, "d", 4)), LANGUAGE_CODE);
+			fail();
+		} catch (RenderLimitExceededException e) {
+			assertEquals(RenderLimitExceededException.Limit.EACH_ITERATIONS, e.getLimit());
+		}
+		try {
+			limitedApi.render("text", ImmutableMap.of("text", "0123456789A"), LANGUAGE_CODE);
+			fail();
+		} catch (RenderLimitExceededException e) {
+			assertEquals(RenderLimitExceededException.Limit.OUTPUT_CHARS, e.getLimit());
+		}
+		
+		assertEquals(Long.valueOf(2), limitedApi.getExceededLimits().get(RenderLimitExceededException.Limit.EACH_ITERATIONS));
+		assertEquals(Long.valueOf(1), limitedApi.getExceededLimits().get(RenderLimitExceededException.Limit.OUTPUT_CHARS));
+	}
+
+	@Test
+	public void outputLimitStopsTheBlockWrappedList() throws Exception {
+		fixture.template("list", "{{#if on}}<ul>{{#each items}}<li>{{this}}</li>{{/each}}</ul>{{/if}}");
+		fixture.template("map", "{{#with page}}{{#each items}}{{@key}}={{this}};{{/each}}{{/with}}");
+		HandlebarsApi limitedApi = fixture.api("handlebars.limits { maxOutputChars = 100 }");
+
+		final AtomicInteger taken = new AtomicInteger();
+		final Iterator<String> items = new Iterator<String>() {
+			@Override
+			public boolean hasNext() {
+				return taken.get() < 20000;
+			}
+
+			@Override
+			public String next() {
+				taken.incrementAndGet();
+				return "0123456789";
+			}
+		};
+		try {
+			limitedApi.render("list", ImmutableMap.of("on", true, "items", items), LANGUAGE_CODE);
+			fail();
+		} catch (RenderLimitExceededException e) {
+			assertEquals(RenderLimitExceededException.Limit.OUTPUT_CHARS, e.getLimit());
+		}
+		// The render is stopped when the buffer of the block is over the limit.
+		assertEquals(6, taken.get());
+
+		final Iterable<Integer> list = Collections.nCopies(20000, 1);
+		try {
+			limitedApi.render("list", ImmutableMap.of("on", true, "items", list), LANGUAGE_CODE);
+			fail();
+		} catch (RenderLimitExceededException e) {
+			assertEquals(RenderLimitExceededException.Limit.OUTPUT_CHARS, e.getLimit());
+		}
+
+		final ImmutableMap.Builder<String, Object> properties = ImmutableMap.builder();
+		for (int i = 0; i < 20000; i++) {
+			properties.put("key" + i, i);
+		}
+		try {
+			limitedApi.render("map", ImmutableMap.of("page", ImmutableMap.of("items", properties.build())), LANGUAGE_CODE);
+			fail();
+		} catch (RenderLimitExceededException e) {
+			assertEquals(RenderLimitExceededException.Limit.OUTPUT_CHARS, e.getLimit());
+		}
+
+		assertEquals("<ul><li>1</li></ul>", 
+				limitedApi.render("list", ImmutableMap.of("on", true, "items", Arrays.asList(1)), LANGUAGE_CODE));
+	}
+}
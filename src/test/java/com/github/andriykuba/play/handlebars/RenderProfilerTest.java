@@ -0,0 +1,46 @@
+package com.github.andriykuba.play.handlebars;
+
+import static com.github.andriykuba.play.handlebars.HandlebarsFixture.LANGUAGE_CODE;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.jknack.handlebars.io.AbstractTemplateLoader;
+import com.github.jknack.handlebars.io.StringTemplateSource;
+import com.github.jknack.handlebars.io.TemplateSource;
+import com.google.common.collect.ImmutableMap;
+
+public class RenderProfilerTest {
+	@Rule
+	public HandlebarsFixture fixture = new HandlebarsFixture();
+
+	@Test
+	public void profileOfSlowRender(){
+		HandlebarsApi profiledApi = fixture.api("handlebars.profiling { sampleRate = 1, thresholdMillis = 0 }");
+		profiledApi.getHandlebars().with(new AbstractTemplateLoader() {
+			@Override
+			public TemplateSource sourceAt(String location) {
+				return new StringTemplateSource(location, 
+						"page".equals(location) ? "{{> row}}{{> row}}" : "{{#each rows}}{{concat this \";\"}}{{/each}}");
+			}
+		});
+		
+		List<RenderProfile> profiles = new ArrayList<>();
+		profiledApi.setProfileListener(profiles::add);
+		
+		String result = profiledApi.render("page", ImmutableMap.of("rows", Arrays.asList(1, 2, 3)), LANGUAGE_CODE);
+		assertEquals("1;2;3;1;2;3;", result);
+		assertEquals(1, profiles.size());
+		
+		RenderProfile profile = profiles.get(0);
+		assertEquals("page", profile.getTemplate());
+		assertEquals(2, profile.getPartials().get("row").getCount());
+		assertEquals(2, profile.getHelpers().get("each").getCount());
+		assertEquals(6, profile.getHelpers().get("concat").getCount());
+	}
+}
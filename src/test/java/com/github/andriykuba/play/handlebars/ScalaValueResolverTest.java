@@ -0,0 +1,75 @@
+package com.github.andriykuba.play.handlebars;
+
+import static com.github.andriykuba.play.handlebars.HandlebarsFixture.LANGUAGE_CODE;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import scala.collection.JavaConverters;
+
+public class ScalaValueResolverTest {
+	@Rule
+	public HandlebarsFixture fixture = new HandlebarsFixture();
+
+	private HandlebarsApi api;
+
+	@Before
+	public void initHandlebars() {
+		api = fixture.api();
+	}
+
+	@Test
+	public void scalaProductsCollectionsAndOptions() {
+		scala.collection.immutable.List<Object> rows = JavaConverters
+				.asScalaBufferConverter(Arrays.<Object>asList(new scala.Tuple2<>("a", 1), new scala.Tuple2<>("b", scala.Option.empty())))
+				.asScala().toList();
+		scala.collection.Map<String, Object> labels = JavaConverters
+				.mapAsScalaMapConverter(ImmutableMap.<String, Object>of("title", scala.Option.apply("Rows")))
+				.asScala();
+		Object data = new scala.Tuple2<>(scala.Option.apply(rows), labels);
+		
+		String template = "{{_2.title}}:{{#each _1}}{{_1}}={{#if _2}}{{_2}}{{else}}-{{/if}};{{/each}}";
+		assertEquals("Rows:a=1;b=-;", api.renderInline(template, data, LANGUAGE_CODE));
+	}
+	
+	@Test
+	public void scalaMapsAndProductsIteratedByTheirEntries() {
+		scala.collection.Map<String, Object> map = JavaConverters
+				.mapAsScalaMapConverter(ImmutableMap.<String, Object>of("a", 1, "b", scala.Option.apply(2)))
+				.asScala();
+		
+		String template = "{{#each this}}[{{@key}}={{this}}]{{/each}}";
+		assertEquals("[a=1][b=2]", api.renderInline(template, map, LANGUAGE_CODE));
+		assertEquals("[_1=x][_2=y]", api.renderInline(template, new scala.Tuple2<>("x", "y"), LANGUAGE_CODE));
+	}
+	
+	@Test
+	public void scalaOptionsAndListsInJavaData() {
+		Map<String, Object> data = new HashMap<>();
+		data.put("none", scala.Option.empty());
+		data.put("some", scala.Option.apply("s"));
+		data.put("list", JavaConverters.asScalaBufferConverter(Arrays.<Object>asList(1, 2)).asScala().toList());
+		
+		String template = "[{{none}}]{{#if none}}yes{{else}}no{{/if}}[{{some}}]{{#each list}}{{this}},{{/each}}";
+		assertEquals("[]no[s]1,2,", api.renderInline(template, data, LANGUAGE_CODE));
+		assertEquals("[]no[s]1,2,", api.renderInline(template, LazyValueResolver.lazy(() -> data), LANGUAGE_CODE));
+	}
+	
+	@Test
+	public void scalaValuesOfLazySuppliers() {
+		Map<String, Object> data = new HashMap<>();
+		data.put("none", LazyValueResolver.lazy(() -> scala.Option.empty()));
+		data.put("list", LazyValueResolver.lazy(() -> JavaConverters.asScalaBufferConverter(Arrays.<Object>asList(1, 2)).asScala().toList()));
+		
+		String template = "{{#if none}}yes{{else}}no{{/if}}{{#each list}}{{this}},{{/each}}{{list.[1]}}";
+		assertEquals("no1,2,2", api.renderInline(template, data, LANGUAGE_CODE));
+	}
+}
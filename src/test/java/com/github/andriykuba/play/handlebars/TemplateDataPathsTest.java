@@ -0,0 +1,59 @@
+package com.github.andriykuba.play.handlebars;
+
+import static com.github.andriykuba.play.handlebars.HandlebarsFixture.LANGUAGE_CODE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import play.api.libs.json.JsValue;
+import play.api.libs.json.Json;
+
+public class TemplateDataPathsTest {
+	@Rule
+	public HandlebarsFixture fixture = new HandlebarsFixture();
+
+	@Test
+	public void dataPathsOfTemplateAndPartials() throws Exception {
+		fixture.template("page", "<h1>{{user.name}}</h1>{{#each items}}{{> item}}{{/each}}"
+				+ "{{#if_equals user.role \"admin\" (message \"admin\" @root.site)}}{{/if_equals}}{{@index}}{{this}}");
+		File item = fixture.template("item", "{{title}} {{../currency}}");
+		HandlebarsApi pathsApi = fixture.api();
+		
+		assertEquals(new TreeSet<>(Arrays.asList("currency", "items", "site", "title", "user.name", "user.role")), 
+				pathsApi.getDataPaths("page"));
+		
+		JsValue json = Json.parse("{\"user\":{\"name\":\"A\",\"email\":\"a@b\",\"role\":\"user\"},"
+				+ "\"items\":[{\"title\":\"t\",\"price\":1}],\"orders\":[1,2,3]}");
+		assertEquals(Json.parse("{\"user\":{\"name\":\"A\",\"role\":\"user\"},\"items\":[{\"title\":\"t\",\"price\":1}]}"), 
+				pathsApi.project("page", json));
+		
+		Map<String, Object> data = ImmutableMap.of(
+				"user", ImmutableMap.of("name", "A", "email", "a@b"), 
+				"orders", Arrays.asList(1, 2, 3));
+		assertEquals(ImmutableMap.of("user", ImmutableMap.of("name", "A")), pathsApi.project("page", data));
+		
+		// The cached templates are not reloaded, nor are their paths.
+		HandlebarsApi reloadingApi = fixture.api("handlebars.isCacheEnabled = false");
+		assertEquals(pathsApi.getDataPaths("page"), reloadingApi.getDataPaths("page"));
+		fixture.template("item", "{{price}}");
+		item.setLastModified(item.lastModified() + 2000);
+		assertEquals(new TreeSet<>(Arrays.asList("currency", "items", "site", "title", "user.name", "user.role")), 
+				pathsApi.getDataPaths("page"));
+		
+		// The edited partial is analyzed and rendered again if the templates are not cached.
+		assertEquals(new TreeSet<>(Arrays.asList("items", "price", "site", "user.name", "user.role")), 
+				reloadingApi.getDataPaths("page"));
+		assertTrue(reloadingApi.render("page", 
+				ImmutableMap.of("user", ImmutableMap.of("name", "A"), "items", Arrays.asList(ImmutableMap.of("price", 1))), 
+				LANGUAGE_CODE).startsWith("<h1>A</h1>1"));
+	}
+}
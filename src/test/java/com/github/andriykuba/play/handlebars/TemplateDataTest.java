@@ -0,0 +1,72 @@
+package com.github.andriykuba.play.handlebars;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class TemplateDataTest {
+
+	@Test
+	public void buildNestedMaps() {
+		Map<String, Object> data = new TemplateData()
+				.put("title", "Page Title")
+				.put("main.article.title", "Article")
+				.put("main.article.text", "Text")
+				.put("main", ImmutableMap.of("footer", "Footer", "side.left", "Left"))
+				.freeze();
+
+		Map<String, Object> expected = ImmutableMap.of(
+				"title", "Page Title",
+				"main", ImmutableMap.of(
+						"article", ImmutableMap.of("title", "Article", "text", "Text"),
+						"footer", "Footer",
+						"side", ImmutableMap.of("left", "Left")));
+		assertEquals(expected, data);
+	}
+
+	@Test
+	public void putIntoExistingBase() {
+		Map<String, Object> base = new HashMap<>();
+		HandlebarsTools.put(base, "user.name", "Petro");
+		HandlebarsTools.put(base, "user..age", 20);
+		HandlebarsTools.put(base, "user.id.", 1);
+
+		assertEquals(ImmutableMap.of("user", ImmutableMap.of("name", "Petro", "", ImmutableMap.of("age", 20), "id", 1)), base);
+	}
+
+	@Test
+	public void internedPathsShareElements() {
+		TemplateData.intern("main.article.title");
+		String[] path = TemplateData.path(new String("side.title"));
+
+		assertSame(TemplateData.path("main.article.title")[2], path[1]);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void valueIsAlreadyAssigned() {
+		new TemplateData().put("user", "Petro").put("user.name", "Petro");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void objectWithoutKey() {
+		new TemplateData().put("", "Petro");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void frozenDataIsImmutable() {
+		new TemplateData().put("user.name", "Petro").freeze().put("user", "Ivan");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void frozenBuilderIsNotUsed() {
+		TemplateData data = new TemplateData().put("user.name", "Petro");
+		data.freeze();
+		data.put("user.age", 20);
+	}
+}
@@ -0,0 +1,20 @@
+package com.github.andriykuba.play.handlebars.fixtures;
+
+import play.mvc.Call;
+
+/**
+ * Stand-in for the reverse router that Play generates for the controllers.
+ */
+public final class routes {
+	public static final ReverseItems Items = new ReverseItems();
+
+	public static final class ReverseItems {
+		public Call list() {
+			return new play.api.mvc.Call("GET", "/items", null);
+		}
+
+		public Call show(String id) {
+			return new play.api.mvc.Call("GET", "/items/" + id, null);
+		}
+	}
+}
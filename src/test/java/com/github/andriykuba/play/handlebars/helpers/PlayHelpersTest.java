@@ -0,0 +1,43 @@
+package com.github.andriykuba.play.handlebars.helpers;
+
+import static com.github.andriykuba.play.handlebars.HandlebarsFixture.LANGUAGE_CODE;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.github.andriykuba.play.handlebars.HandlebarsApi;
+import com.github.andriykuba.play.handlebars.HandlebarsFixture;
+import com.github.jknack.handlebars.EscapingStrategy;
+
+import controllers.AssetsFinder;
+
+public class PlayHelpersTest {
+	@Rule
+	public HandlebarsFixture fixture = new HandlebarsFixture();
+
+	@Test
+	public void assetEscapedOnceForOutput() throws Exception {
+		AssetsFinder assetsFinder = Mockito.mock(AssetsFinder.class);
+		Mockito.when(assetsFinder.path(Mockito.anyString())).thenReturn("/assets/main.css?v=1&t=2");
+		HandlebarsApi assetsApi = fixture.api("", assetsFinder);
+		
+		Map<String, Object> data = new HashMap<>();
+		assertEquals("/assets/main.css?v&#x3D;1&amp;t&#x3D;2", 
+				assetsApi.renderInline("{{asset \"main.css\"}}", data, LANGUAGE_CODE));
+		assertEquals("/assets/main.css?v=1&t=2", 
+				assetsApi.renderInline("{{{asset \"main.css\"}}}", data, LANGUAGE_CODE));
+		assertEquals("/assets/main.css?v&#x3D;1&amp;t&#x3D;2#top", 
+				assetsApi.renderInline("{{concat (asset \"main.css\") \"#top\"}}", data, LANGUAGE_CODE));
+		
+		// The cached URL follows the escaping of the engine.
+		assetsApi.getHandlebars().with(EscapingStrategy.NOOP);
+		assertEquals("/assets/main.css?v=1&t=2", 
+				assetsApi.renderInline("<link href=\"{{asset \"main.css\"}}\">", data, LANGUAGE_CODE)
+						.replaceAll("^<link href=\"|\">$", ""));
+	}
+}
@@ -0,0 +1,134 @@
+package com.github.andriykuba.play.handlebars.helpers;
+
+import static com.github.andriykuba.play.handlebars.HandlebarsFixture.LANGUAGE_CODE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
+import com.github.andriykuba.play.handlebars.HandlebarsApi;
+import com.github.andriykuba.play.handlebars.HandlebarsFixture;
+import com.github.andriykuba.play.handlebars.RenderLimitExceededException;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+
+public class StreamingEachHelperTest {
+	@Rule
+	public HandlebarsFixture fixture = new HandlebarsFixture();
+
+	private HandlebarsApi api;
+
+	@Before
+	public void initHandlebars() {
+		api = fixture.api();
+	}
+
+	@Test
+	public void eachOverIteratorAndStream(){
+		String template = "{{#each rows}}{{this}}{{#if @last}}.{{else}},{{/if}}{{else}}empty{{/each}}";
+		
+		assertEquals("1,2,3.", api.renderInline(template, 
+				ImmutableMap.of("rows", Arrays.asList(1, 2, 3).iterator()), LANGUAGE_CODE));
+		assertEquals("1,2,3.", api.renderInline(template, 
+				ImmutableMap.of("rows", IntStream.rangeClosed(1, 3).boxed()), LANGUAGE_CODE));
+		assertEquals("empty", api.renderInline(template, 
+				ImmutableMap.of("rows", Stream.empty()), LANGUAGE_CODE));
+	}
+	
+	@Test
+	public void eachOverPublisher(){
+		final int count = 1000;
+		Publisher<Integer> publisher = subscriber -> subscriber.onSubscribe(new Subscription() {
+			private int next = 0;
+			
+			@Override
+			public void request(long n) {
+				for (long i = 0; i < n && next < count; i++) {
+					subscriber.onNext(next++);
+				}
+				if (next == count) {
+					subscriber.onComplete();
+				}
+			}
+			
+			@Override
+			public void cancel() {
+				next = count;
+			}
+		});
+		
+		String result = api.renderInline("{{#each rows}}{{this}};{{/each}}", ImmutableMap.of("rows", publisher), LANGUAGE_CODE);
+		assertEquals(IntStream.range(0, count).mapToObj(i -> i + ";").collect(Collectors.joining()), result);
+	}
+
+	@Test
+	public void stalledPublisherTimesOut() {
+		AtomicInteger cancels = new AtomicInteger();
+		Publisher<Integer> stalled = subscriber -> subscriber.onSubscribe(new Subscription() {
+			@Override
+			public void request(long n) {
+				// Never signals.
+			}
+			
+			@Override
+			public void cancel() {
+				cancels.incrementAndGet();
+			}
+		});
+		
+		HandlebarsApi limitedApi = fixture.api("handlebars { streaming.timeoutSeconds = 1, limits.maxRenderMillis = 100 }");
+		try {
+			limitedApi.renderInline("{{#each rows}}{{this}}{{/each}}", ImmutableMap.of("rows", stalled), LANGUAGE_CODE);
+			fail();
+		} catch (RenderLimitExceededException e) {
+			assertEquals(RenderLimitExceededException.Limit.RENDER_MILLIS, e.getLimit());
+		}
+		
+		HandlebarsApi streamingApi = fixture.api("handlebars.streaming.timeoutSeconds = 1");
+		try {
+			streamingApi.renderInline("{{#each rows}}{{this}}{{/each}}", ImmutableMap.of("rows", stalled), LANGUAGE_CODE);
+			fail();
+		} catch (RuntimeException e) {
+			assertTrue(Throwables.getRootCause(e).getMessage().startsWith("Publisher did not signal"));
+		}
+		assertEquals(2, cancels.get());
+	}
+
+	@Test
+	public void overflowingPublisherIsCancelled() {
+		AtomicInteger cancels = new AtomicInteger();
+		Publisher<Integer> overflowing = subscriber -> subscriber.onSubscribe(new Subscription() {
+			@Override
+			public void request(long n) {
+				// Ignores the demand.
+				for (int i = 0; i < n + 10; i++) {
+					subscriber.onNext(i);
+				}
+			}
+			
+			@Override
+			public void cancel() {
+				cancels.incrementAndGet();
+			}
+		});
+		
+		try {
+			api.renderInline("{{#each rows}}{{this}}{{/each}}", ImmutableMap.of("rows", overflowing), LANGUAGE_CODE);
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals("Publisher signalled more elements than requested", Throwables.getRootCause(e).getMessage());
+		}
+		assertEquals(1, cancels.get());
+	}
+}
@@ -0,0 +1,24 @@
+package com.github.andriykuba.play.handlebars.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.net.URLEncoder;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class StringHelpersTest {
+
+	@Test
+	public void encodeUrlParameterAsUrlEncoder() throws Exception {
+		String plain = "item-42_a.b*";
+		assertSame(plain, StringHelpers.encodeUrlParameter(plain));
+		
+		for (String parameter : Arrays.asList("blue+light blue", "a=1&b=~2", "\u00e6\u00f8\u00e5", "\u20ac 5", 
+				"\ud83d\ude00!", "lone \ud83d", "/path?x#y")) {
+			assertEquals(URLEncoder.encode(parameter, "UTF-8"), StringHelpers.encodeUrlParameter(parameter).toString());
+			assertEquals(URLEncoder.encode(parameter, "UTF-8"), StringHelpers.encodeUrlParameter(parameter).toString());
+		}
+	}
+}
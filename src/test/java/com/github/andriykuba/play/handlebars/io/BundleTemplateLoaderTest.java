@@ -0,0 +1,76 @@
+package com.github.andriykuba.play.handlebars.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.jknack.handlebars.Handlebars;
+import com.google.common.collect.ImmutableMap;
+
+public class BundleTemplateLoaderTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File bundle;
+
+	@Before
+	public void writeBundle() throws IOException {
+		File templates = folder.newFolder("templates");
+		File partials = new File(templates, "partials");
+		partials.mkdir();
+
+		write(new File(templates, "page.hbs"), "<h1>{{title}}</h1>{{> partials/footer}}");
+		write(new File(partials, "footer.hbs"), "<footer>© {{year}}</footer>");
+		write(new File(templates, "notes.txt"), "not a template");
+
+		bundle = new File(folder.getRoot(), "templates.bundle");
+		TemplateBundleWriter.write(templates, ".hbs", bundle);
+	}
+
+	@Test
+	public void renderFromMappedFile() throws IOException {
+		Handlebars handlebars = new Handlebars(BundleTemplateLoader.fromFile(bundle, ".hbs"));
+
+		String result = handlebars.compile("page").apply(ImmutableMap.of("title", "Title", "year", 2017));
+
+		assertEquals("<h1>Title</h1><footer>© 2017</footer>", result);
+	}
+
+	@Test
+	public void renderFromStream() throws IOException {
+		Handlebars handlebars = new Handlebars(BundleTemplateLoader.fromStream(new FileInputStream(bundle), "templates.bundle", ".hbs"));
+
+		String result = handlebars.compile("/partials/footer").apply(ImmutableMap.of("year", 2017));
+
+		assertEquals("<footer>© 2017</footer>", result);
+	}
+
+	@Test(expected = IOException.class)
+	public void missingTemplate() throws IOException {
+		BundleTemplateLoader.fromFile(bundle, ".hbs").sourceAt("notes");
+	}
+
+	@Test(expected = IOException.class)
+	public void entryOutOfBundle() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(32);
+		buffer.putInt(BundleTemplateLoader.MAGIC).putInt(BundleTemplateLoader.VERSION).putInt(1);
+		buffer.putInt(1).put((byte) 'a').putInt(Integer.MAX_VALUE).putInt(16);
+		buffer.flip();
+
+		new BundleTemplateLoader(buffer, "broken.bundle", ".hbs", 0L);
+	}
+
+	private static void write(File file, String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+}
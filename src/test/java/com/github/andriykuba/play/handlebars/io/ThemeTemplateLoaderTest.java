@@ -0,0 +1,50 @@
+package com.github.andriykuba.play.handlebars.io;
+
+import static com.github.andriykuba.play.handlebars.HandlebarsFixture.LANGUAGE_CODE;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.andriykuba.play.handlebars.HandlebarsApi;
+import com.github.andriykuba.play.handlebars.HandlebarsFixture;
+import com.google.common.collect.ImmutableMap;
+
+public class ThemeTemplateLoaderTest {
+	@Rule
+	public HandlebarsFixture fixture = new HandlebarsFixture();
+
+	@Test
+	public void themesOverrideBaseTemplates() throws Exception {
+		fixture.template("page", "[{{> header}}]");
+		fixture.template("header", "base {{name}}");
+		fixture.write("themes/brand/header.hbs", "brand {{name}}");
+		HandlebarsApi themedApi = fixture.api("handlebars.themes { brand = \"/themes/brand\" }");
+		
+		Map<String, Object> data = ImmutableMap.of("name", "a");
+		assertEquals("[base a]", themedApi.render("page", data, LANGUAGE_CODE));
+		assertEquals("[brand a]", themedApi.withTheme("brand", () -> themedApi.render("page", data, LANGUAGE_CODE)));
+		assertEquals(Arrays.asList("[brand a]", "[brand a]"), themedApi.withTheme("brand", 
+				() -> themedApi.renderAll("page", Arrays.asList(data, data), LANGUAGE_CODE)));
+		assertEquals("[base a]", themedApi.render("page", data, LANGUAGE_CODE));
+	}
+
+	@Test
+	public void themesFromBundles() throws Exception {
+		fixture.write("source/base/page.hbs", "[{{> header}}]");
+		fixture.write("source/base/header.hbs", "base {{name}}");
+		fixture.write("source/brand/header.hbs", "brand {{name}}");
+		TemplateBundleWriter.write(new File(fixture.root(), "source/base"), ".hbs", new File(fixture.root(), "base.bundle"));
+		TemplateBundleWriter.write(new File(fixture.root(), "source/brand"), ".hbs", new File(fixture.root(), "brand.bundle"));
+		HandlebarsApi themedApi = fixture.api("handlebars.bundle = \"base.bundle\"\n"
+				+ "handlebars.themes { brand = \"brand.bundle\" }");
+		
+		Map<String, Object> data = ImmutableMap.of("name", "a");
+		assertEquals("[base a]", themedApi.render("page", data, LANGUAGE_CODE));
+		assertEquals("[brand a]", themedApi.withTheme("brand", () -> themedApi.render("page", data, LANGUAGE_CODE)));
+	}
+}
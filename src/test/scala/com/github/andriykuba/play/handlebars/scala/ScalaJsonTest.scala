@@ -15,6 +15,13 @@ import org.scalatest.junit.JUnitRunner
 
 import controllers.AssetsFinder;
 import play.Environment
+import play.api.i18n.Lang
+import play.api.i18n.Messages
+import play.api.mvc.AnyContent
+import play.api.mvc.Flash
+import play.api.mvc.Request
+import play.api.mvc.RequestHeader
+import play.api.test.FakeRequest
 
 @RunWith(classOf[JUnitRunner])
 class ScalaJsonTest extends FlatSpec with Matchers with BeforeAndAfter with MockitoSugar {
@@ -132,4 +139,35 @@ class ScalaJsonTest extends FlatSpec with Matchers with BeforeAndAfter with Mock
     
     result should be ("Petro")
   }
+  
+  it should "keep the flash over the flash property of the data" in {
+    val root = java.nio.file.Files.createTempDirectory("templates").toFile
+    val page = new java.io.File(root, "page.hbs")
+    java.nio.file.Files.write(page.toPath, "{{flash.success}} {{flash.info}} {{title}}".getBytes("UTF-8"))
+    page.deleteOnExit()
+    root.deleteOnExit()
+    
+    val environment = mock[Environment]
+    when(environment.getFile("/templates")).thenReturn(root)
+    val support = new HandlebarsSupport {
+      val handlebarsApi = new HandlebarsApi(environment, ConfigFactory.load(), mock[MessagesApi], mock[AssetsFinder])
+    }
+    
+    implicit val request: Request[AnyContent] = FakeRequest()
+    implicit val scalaMessagesApi: play.api.i18n.MessagesApi = mock[play.api.i18n.MessagesApi]
+    val messages = mock[Messages]
+    when(messages.lang).thenReturn(Lang(languageCode))
+    when(scalaMessagesApi.preferred(request: RequestHeader)).thenReturn(messages)
+    implicit val flash: Flash = Flash(Map("success" -> "created"))
+    
+    val data = Json.obj(
+        "title" -> "Page",
+        "flash" -> Json.obj(
+            "success" -> "from the data",
+            "info" -> "kept"))
+    
+    val result = support.render("page", data)
+    
+    result.body should be ("created kept Page")
+  }
 }
\ No newline at end of file